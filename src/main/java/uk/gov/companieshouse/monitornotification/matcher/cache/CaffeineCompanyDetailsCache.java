@@ -0,0 +1,156 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+/**
+ * A bounded in-memory cache of company details, with each entry expiring a fixed time after it is fetched.<br>
+ * <br>
+ * Caffeine admits new entries by how often their key has been seen, so the companies with many followers
+ * stay cached when a burst of one-off lookups would otherwise evict them. The hit, miss and eviction
+ * statistics are published as the {@code cache.*} metrics, tagged {@code cache=company-details}.<br>
+ * <br>
+ * Company numbers the API reports as not found are held in a second, smaller cache with a shorter expiry,
+ * tagged {@code cache=company-not-found}, so that a company created shortly afterwards is soon picked up.<br>
+ * <br>
+ * Once an entry is older than the refresh-after-write time it is reported as due for refresh, and is
+ * reloaded in the background while it goes on being served.<br>
+ * <br>
+ * The expiry is set per entry rather than by expire-after-write, so that an entry reloaded from the warm-start
+ * snapshot keeps only what remained of its expiry when it was saved.
+ */
+@Component
+@ConditionalOnCompanyCacheBackend(CompanyCacheBackend.CAFFEINE)
+public class CaffeineCompanyDetailsCache implements CompanyDetailsCache {
+
+    static final String CACHE_NAME = "company-details";
+    static final String NOT_FOUND_CACHE_NAME = "company-not-found";
+
+    private final Cache<String, CompanyDetails> cache;
+    private final Cache<String, Boolean> notFoundCache;
+    private final long expireAfterWrite;
+    private final long refreshAfterWrite;
+
+    public CaffeineCompanyDetailsCache(final CompanyCacheProperties properties, final MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(expireAfterWrite(properties.getExpireAfterWrite()))
+                .recordStats()
+                .build();
+
+        this.notFoundCache = Caffeine.newBuilder()
+                .maximumSize(properties.getNotFoundMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getNotFoundExpireAfterWrite()))
+                .recordStats()
+                .build();
+
+        this.expireAfterWrite = properties.getExpireAfterWrite();
+        this.refreshAfterWrite = properties.getRefreshAfterWrite();
+
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(registry, notFoundCache, NOT_FOUND_CACHE_NAME);
+    }
+
+    @Override
+    public Optional<CompanyDetails> get(final String companyNumber) {
+        return Optional.ofNullable(cache.getIfPresent(companyNumber));
+    }
+
+    @Override
+    public void put(final String companyNumber, final CompanyDetails companyDetails) {
+        cache.put(companyNumber, companyDetails);
+    }
+
+    @Override
+    public void invalidate(final String companyNumber) {
+        cache.invalidate(companyNumber);
+    }
+
+    @Override
+    public boolean isDueForRefresh(final String companyNumber) {
+        if (refreshAfterWrite <= 0) {
+            return false;
+        }
+        OptionalLong expiresAfter = expiresAfter(companyNumber);
+        return expiresAfter.isPresent() && expireAfterWrite - expiresAfter.getAsLong() >= refreshAfterWrite;
+    }
+
+    @Override
+    public boolean isNotFound(final String companyNumber) {
+        return notFoundCache.getIfPresent(companyNumber) != null;
+    }
+
+    @Override
+    public void putNotFound(final String companyNumber) {
+        notFoundCache.put(companyNumber, Boolean.TRUE);
+    }
+
+    /**
+     * A point-in-time copy of the cached company details with the time left until each expires, for the
+     * warm-start snapshot.
+     */
+    Map<String, Entry> entries() {
+        Map<String, Entry> entries = new HashMap<>();
+        cache.asMap().forEach((companyNumber, companyDetails) -> expiresAfter(companyNumber).ifPresent(
+                expiresAfter -> entries.put(companyNumber, new Entry(companyDetails, expiresAfter))));
+        return entries;
+    }
+
+    /**
+     * Cache the company details until the given time has passed, rather than for the full expiry.
+     */
+    void put(final String companyNumber, final CompanyDetails companyDetails, final long expiresAfter) {
+        cache.policy().expireVariably().ifPresent(expiration ->
+                expiration.put(companyNumber, companyDetails, expiresAfter, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The time in milliseconds until the cached company details expire, if they are cached.
+     */
+    OptionalLong expiresAfter(final String companyNumber) {
+        return cache.policy().expireVariably()
+                .map(expiration -> expiration.getExpiresAfter(companyNumber, TimeUnit.MILLISECONDS))
+                .orElse(OptionalLong.empty());
+    }
+
+    private static Expiry<String, CompanyDetails> expireAfterWrite(final long expireAfterWrite) {
+        long duration = TimeUnit.MILLISECONDS.toNanos(expireAfterWrite);
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(final String key, final CompanyDetails value, final long currentTime) {
+                return duration;
+            }
+
+            @Override
+            public long expireAfterUpdate(final String key, final CompanyDetails value, final long currentTime,
+                    final long currentDuration) {
+                return duration;
+            }
+
+            @Override
+            public long expireAfterRead(final String key, final CompanyDetails value, final long currentTime,
+                    final long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Cached company details, and the time in milliseconds until they expire.
+     */
+    record Entry(CompanyDetails companyDetails, long expiresAfter) {
+    }
+}
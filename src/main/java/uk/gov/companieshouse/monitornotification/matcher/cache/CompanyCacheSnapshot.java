@@ -0,0 +1,229 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+/**
+ * Saves the company details cache to disk at intervals and on shutdown, and reloads it on start-up so that a
+ * new instance does not begin with a cold cache.<br>
+ * <br>
+ * The snapshot is loaded while the application context is being built, so before the listener containers
+ * start. A snapshot older than the configured maximum age is ignored. Each entry keeps the expiry it had when
+ * the snapshot was saved, and one that has since expired is not reloaded, so a company is never cached for
+ * longer than the expiry however it was carried over.<br>
+ * <br>
+ * The file holds a header (magic number, creation time, entry count) followed by the company number, name
+ * and status of each entry as length-prefixed UTF-8 and the time it expires. It is memory-mapped to load, and written to a
+ * temporary file that then replaces the previous snapshot, so a crash mid-write never leaves a partial file.<br>
+ * <br>
+ * The snapshot path ({@code COMPANY_CACHE_SNAPSHOT_PATH}) has no default and must be set when the snapshot is
+ * enabled. It should be on a volume mounted into the task (e.g. EFS), since the task's own filesystem is
+ * discarded when the task is replaced and a snapshot there would never be reloaded.
+ */
+@Component
+@ConditionalOnCompanyCacheBackend(CompanyCacheBackend.CAFFEINE)
+@ConditionalOnProperty(name = "spring.company.cache.snapshot-enabled", havingValue = "true")
+public class CompanyCacheSnapshot {
+
+    static final int MAGIC = 0x43445332;
+
+    private static final int NULL_LENGTH = -1;
+
+    private final CaffeineCompanyDetailsCache cache;
+    private final Path path;
+    private final long interval;
+    private final long maxAge;
+    private final Clock clock;
+    private final Logger logger;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CompanyCacheSnapshot(final CaffeineCompanyDetailsCache cache, final CompanyCacheProperties properties,
+            final Logger logger) {
+        this(cache, properties, Clock.systemUTC(), logger);
+    }
+
+    CompanyCacheSnapshot(final CaffeineCompanyDetailsCache cache, final CompanyCacheProperties properties,
+            final Clock clock, final Logger logger) {
+        if (properties.getSnapshotPath() == null || properties.getSnapshotPath().isBlank()) {
+            throw new IllegalStateException("The company cache snapshot is enabled but no snapshot path is set: "
+                    + "set COMPANY_CACHE_SNAPSHOT_PATH to a file on a persistent mounted volume.");
+        }
+        this.cache = cache;
+        this.path = Path.of(properties.getSnapshotPath());
+        this.interval = properties.getSnapshotInterval();
+        this.maxAge = properties.getSnapshotMaxAge();
+        this.clock = clock;
+        this.logger = logger;
+    }
+
+    @PostConstruct
+    public void start() {
+        load();
+
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("company-cache-snapshot-"));
+            scheduler.scheduleWithFixedDelay(this::save, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        save();
+    }
+
+    /**
+     * Load the snapshot into the cache, if there is one and it is recent enough.
+     *
+     * @return the number of companies loaded.
+     */
+    int load() {
+        logger.trace("load(path=%s) method called.".formatted(path));
+
+        if (!Files.isRegularFile(path)) {
+            logger.info("No company cache snapshot found at %s, starting with an empty cache.".formatted(path));
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) {
+                logger.info("Ignoring unrecognised company cache snapshot at %s.".formatted(path));
+                return 0;
+            }
+
+            long age = clock.millis() - buffer.getLong();
+            if (age > maxAge) {
+                logger.info("Ignoring company cache snapshot at %s, %d ms old.".formatted(path, age));
+                return 0;
+            }
+
+            int count = buffer.getInt();
+            long now = clock.millis();
+            Map<String, CaffeineCompanyDetailsCache.Entry> entries = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                CompanyDetails companyDetails = new CompanyDetails();
+                companyDetails.setCompanyNumber(readString(buffer));
+                companyDetails.setCompanyName(readString(buffer));
+                companyDetails.setCompanyStatus(readString(buffer));
+                long expiresAfter = buffer.getLong() - now;
+                if (expiresAfter > 0) {
+                    entries.put(companyDetails.getCompanyNumber(),
+                            new CaffeineCompanyDetailsCache.Entry(companyDetails, expiresAfter));
+                }
+            }
+            entries.forEach((companyNumber, entry) ->
+                    cache.put(companyNumber, entry.companyDetails(), entry.expiresAfter()));
+
+            logger.info("Loaded %d companies from the company cache snapshot at %s.".formatted(entries.size(), path));
+            return entries.size();
+
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            // A damaged snapshot only costs a cold start.
+            logger.error("Unable to load the company cache snapshot at %s.".formatted(path), ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Write the current cache contents to the snapshot file.
+     */
+    void save() {
+        logger.trace("save(path=%s) method called.".formatted(path));
+
+        Map<String, CaffeineCompanyDetailsCache.Entry> entries = cache.entries();
+        Path temp = null;
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                long now = clock.millis();
+                out.writeInt(MAGIC);
+                out.writeLong(now);
+                out.writeInt(entries.size());
+                for (CaffeineCompanyDetailsCache.Entry entry : entries.values()) {
+                    CompanyDetails companyDetails = entry.companyDetails();
+                    writeString(out, companyDetails.getCompanyNumber());
+                    writeString(out, companyDetails.getCompanyName());
+                    writeString(out, companyDetails.getCompanyStatus());
+                    out.writeLong(now + entry.expiresAfter());
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+
+            logger.debug("Saved %d companies to the company cache snapshot at %s.".formatted(entries.size(), path));
+
+        } catch (IOException ex) {
+            logger.error("Unable to save the company cache snapshot at %s.".formatted(path), ex);
+        } finally {
+            deleteTemporaryFile(temp);
+        }
+    }
+
+    private void deleteTemporaryFile(final Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ex) {
+            logger.error("Unable to delete the temporary company cache snapshot at %s.".formatted(temp), ex);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length in snapshot: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,32 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import java.util.Optional;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+
+/**
+ * Company details previously fetched from the Company Profile API, keyed by company number.
+ */
+public interface CompanyDetailsCache {
+
+    Optional<CompanyDetails> get(String companyNumber);
+
+    void put(String companyNumber, CompanyDetails companyDetails);
+
+    /**
+     * Remove the cached details for this company, so that they are no longer served once the company is gone.
+     */
+    void invalidate(String companyNumber);
+
+    /**
+     * Whether the cached details for this company are old enough to be reloaded in the background, so that
+     * a frequently used entry is replaced before it expires rather than missed once it has.
+     */
+    boolean isDueForRefresh(String companyNumber);
+
+    /**
+     * Whether the Company Profile API recently reported that no company exists with this number.
+     */
+    boolean isNotFound(String companyNumber);
+
+    void putNotFound(String companyNumber);
+}
@@ -0,0 +1,45 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+
+/**
+ * Matches when the company details cache is enabled and {@code spring.company.cache.backend} binds to the given
+ * {@link CompanyCacheBackend}, in the same relaxed form (e.g. {@code off-heap}) as {@link
+ * uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Conditional(ConditionalOnCompanyCacheBackend.OnCompanyCacheBackendCondition.class)
+@interface ConditionalOnCompanyCacheBackend {
+
+    CompanyCacheBackend value();
+
+    class OnCompanyCacheBackendCondition implements Condition {
+
+        @Override
+        public boolean matches(final ConditionContext context, final AnnotatedTypeMetadata metadata) {
+            var attributes = metadata.getAnnotationAttributes(ConditionalOnCompanyCacheBackend.class.getName());
+            if (attributes == null) {
+                return false;
+            }
+
+            Binder binder = Binder.get(context.getEnvironment());
+            boolean enabled = binder.bind("spring.company.cache.enabled", Boolean.class).orElse(false);
+            CompanyCacheBackend backend = binder.bind("spring.company.cache.backend", CompanyCacheBackend.class)
+                    .orElse(CompanyCacheBackend.CAFFEINE);
+
+            return enabled && backend == attributes.get("value");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+
+/**
+ * Used when caching is disabled, so every lookup goes to the Company Profile API.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.company.cache.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpCompanyDetailsCache implements CompanyDetailsCache {
+
+    @Override
+    public Optional<CompanyDetails> get(final String companyNumber) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(final String companyNumber, final CompanyDetails companyDetails) {
+        // Nothing is cached.
+    }
+
+    @Override
+    public void invalidate(final String companyNumber) {
+        // Nothing is cached.
+    }
+
+    @Override
+    public boolean isDueForRefresh(final String companyNumber) {
+        return false;
+    }
+
+    @Override
+    public boolean isNotFound(final String companyNumber) {
+        return false;
+    }
+
+    @Override
+    public void putNotFound(final String companyNumber) {
+        // Nothing is cached.
+    }
+}
@@ -0,0 +1,20 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+
+/**
+ * Stops the application starting when the company cache snapshot is enabled with the off-heap backend, which
+ * has no snapshot, rather than every task silently starting with a cold cache.
+ */
+@Component
+@ConditionalOnCompanyCacheBackend(CompanyCacheBackend.OFF_HEAP)
+@ConditionalOnProperty(name = "spring.company.cache.snapshot-enabled", havingValue = "true")
+public class OffHeapCompanyCacheSnapshotCheck {
+
+    public OffHeapCompanyCacheSnapshotCheck() {
+        throw new IllegalStateException("The company cache snapshot is enabled but is only supported by the "
+                + "caffeine backend: unset COMPANY_CACHE_SNAPSHOT_ENABLED or set COMPANY_CACHE_BACKEND=caffeine.");
+    }
+}
@@ -0,0 +1,366 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+/**
+ * A company details cache held in direct memory, so that millions of entries add nothing to the heap or to
+ * garbage collection.<br>
+ * <br>
+ * Entries live in fixed-width slots: the company number packed into an 8-byte key, the time written, and the
+ * company name as UTF-8 in up to the configured number of bytes. Slots are grouped into buckets of
+ * {@value #WAYS}, and a key is only ever stored in the bucket its hash selects, so a lookup reads at most one
+ * bucket. When a bucket is full the oldest entry in it is evicted. Only the company number and name are kept,
+ * as those are all the matcher uses.<br>
+ * <br>
+ * The few companies whose number or name does not fit in a slot are kept in a small on-heap overflow cache,
+ * with the same expiry, and counted by {@code cache.off.heap.overflow.puts}.<br>
+ * <br>
+ * The metrics use the same {@code cache.*} names and {@code cache=company-details} tag as the on-heap cache.
+ * Company numbers reported as not found are few, and are kept in a small on-heap cache as before.
+ */
+@Component
+@ConditionalOnCompanyCacheBackend(CompanyCacheBackend.OFF_HEAP)
+public class OffHeapCompanyDetailsCache implements CompanyDetailsCache {
+
+    static final int WAYS = 8;
+    static final String OVERFLOW_CACHE_NAME = "company-details-overflow";
+
+    private static final int KEY_BYTES = Long.BYTES;
+    private static final int KEY_OFFSET = 0;
+    private static final int WRITTEN_OFFSET = KEY_OFFSET + KEY_BYTES;
+    private static final int NAME_LENGTH_OFFSET = WRITTEN_OFFSET + Long.BYTES;
+    private static final int NAME_OFFSET = NAME_LENGTH_OFFSET + Short.BYTES;
+    private static final short NULL_NAME = -1;
+    private static final long EMPTY = 0L;
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    private static final int MAX_LOCKS = 4096;
+
+    private final ByteBuffer[] segments;
+    private final Object[] locks;
+    private final int slotBytes;
+    private final int nameBytes;
+    private final int bucketMask;
+    private final int bucketsPerSegment;
+    private final long expireAfterWrite;
+    private final long refreshAfterWrite;
+    private final Clock clock;
+    private final Cache<String, Boolean> notFoundCache;
+    private final Cache<String, CompanyDetails> overflowCache;
+    private final AtomicLong size = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Counter overflowPuts;
+
+    @Autowired
+    public OffHeapCompanyDetailsCache(final CompanyCacheProperties properties, final MeterRegistry registry) {
+        this(properties, registry, Clock.systemUTC());
+    }
+
+    OffHeapCompanyDetailsCache(final CompanyCacheProperties properties, final MeterRegistry registry, final Clock clock) {
+        this.nameBytes = properties.getOffHeapNameBytes();
+        this.slotBytes = NAME_OFFSET + nameBytes;
+        this.expireAfterWrite = properties.getExpireAfterWrite();
+        this.refreshAfterWrite = properties.getRefreshAfterWrite();
+        this.clock = clock;
+
+        int buckets = Integer.highestOneBit((int) Math.max(Math.min((properties.getMaximumSize() + WAYS - 1) / WAYS,
+                1 << 28), 1));
+        if (buckets * (long) WAYS < properties.getMaximumSize()) {
+            buckets <<= 1;
+        }
+        this.bucketMask = buckets - 1;
+
+        // A direct buffer is limited to 2GB, so the buckets are split across segments of at most 1GB.
+        int bucketBytes = slotBytes * WAYS;
+        this.bucketsPerSegment = Math.min(buckets, Integer.highestOneBit(MAX_SEGMENT_BYTES / bucketBytes));
+        this.segments = new ByteBuffer[buckets / bucketsPerSegment];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(bucketsPerSegment * bucketBytes);
+        }
+
+        this.locks = new Object[Math.min(buckets, MAX_LOCKS)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        this.notFoundCache = Caffeine.newBuilder()
+                .maximumSize(properties.getNotFoundMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getNotFoundExpireAfterWrite()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, notFoundCache, CaffeineCompanyDetailsCache.NOT_FOUND_CACHE_NAME);
+
+        this.overflowCache = Caffeine.newBuilder()
+                .maximumSize(properties.getOffHeapOverflowMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(expireAfterWrite))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, overflowCache, OVERFLOW_CACHE_NAME);
+
+        String cacheName = CaffeineCompanyDetailsCache.CACHE_NAME;
+        this.hits = Counter.builder("cache.gets").tag("cache", cacheName).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", cacheName).tag("result", "miss").register(registry);
+        this.puts = Counter.builder("cache.puts").tag("cache", cacheName).register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", cacheName).register(registry);
+        this.overflowPuts = Counter.builder("cache.off.heap.overflow.puts")
+                .description("Company details too large for an off-heap slot, and so cached on the heap instead")
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("cache.size", size, AtomicLong::get).tag("cache", cacheName).register(registry);
+        Gauge.builder("cache.off.heap.bytes", segments, OffHeapCompanyDetailsCache::capacityBytes)
+                .tag("cache", cacheName)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @Override
+    public Optional<CompanyDetails> get(final String companyNumber) {
+        long key = pack(companyNumber);
+        if (key == EMPTY) {
+            return getOverflow(companyNumber);
+        }
+
+        int bucket = bucket(key);
+        ByteBuffer segment = segments[bucket / bucketsPerSegment];
+        int bucketStart = (bucket % bucketsPerSegment) * slotBytes * WAYS;
+
+        synchronized (locks[bucket % locks.length]) {
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucketStart + way * slotBytes;
+                if (segment.getLong(slot + KEY_OFFSET) != key) {
+                    continue;
+                }
+                if (clock.millis() - segment.getLong(slot + WRITTEN_OFFSET) >= expireAfterWrite) {
+                    clear(segment, slot);
+                    break;
+                }
+
+                CompanyDetails companyDetails = new CompanyDetails();
+                companyDetails.setCompanyNumber(companyNumber);
+                companyDetails.setCompanyName(readName(segment, slot));
+
+                hits.increment();
+                return Optional.of(companyDetails);
+            }
+        }
+
+        return getOverflow(companyNumber);
+    }
+
+    private Optional<CompanyDetails> getOverflow(final String companyNumber) {
+        CompanyDetails companyDetails = overflowCache.getIfPresent(companyNumber);
+        if (companyDetails == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(companyDetails);
+    }
+
+    @Override
+    public void put(final String companyNumber, final CompanyDetails companyDetails) {
+        long key = pack(companyNumber);
+        byte[] name = companyDetails.getCompanyName() == null ? null
+                : companyDetails.getCompanyName().getBytes(StandardCharsets.UTF_8);
+        if (key == EMPTY || (name != null && name.length > nameBytes)) {
+            putOverflow(companyNumber, key, companyDetails.getCompanyName());
+            return;
+        }
+
+        int bucket = bucket(key);
+        ByteBuffer segment = segments[bucket / bucketsPerSegment];
+        int bucketStart = (bucket % bucketsPerSegment) * slotBytes * WAYS;
+        long now = clock.millis();
+
+        synchronized (locks[bucket % locks.length]) {
+            int target = -1;
+            int oldest = -1;
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucketStart + way * slotBytes;
+                long slotKey = segment.getLong(slot + KEY_OFFSET);
+                if (slotKey == key) {
+                    target = slot;
+                    break;
+                }
+                if (slotKey == EMPTY) {
+                    if (target < 0) {
+                        target = slot;
+                    }
+                } else if (oldest < 0 || segment.getLong(slot + WRITTEN_OFFSET) < segment.getLong(oldest + WRITTEN_OFFSET)) {
+                    oldest = slot;
+                }
+            }
+
+            if (target < 0) {
+                clear(segment, oldest);
+                evictions.increment();
+                target = oldest;
+            }
+            if (segment.getLong(target + KEY_OFFSET) == EMPTY) {
+                size.incrementAndGet();
+            }
+
+            segment.putLong(target + KEY_OFFSET, key);
+            segment.putLong(target + WRITTEN_OFFSET, now);
+            segment.putShort(target + NAME_LENGTH_OFFSET, name == null ? NULL_NAME : (short) name.length);
+            if (name != null) {
+                segment.put(target + NAME_OFFSET, name);
+            }
+        }
+        // A longer name written earlier would otherwise still be found in the overflow cache.
+        overflowCache.invalidate(companyNumber);
+        puts.increment();
+    }
+
+    private void putOverflow(final String companyNumber, final long key, final String companyName) {
+        if (key != EMPTY) {
+            // A shorter name written earlier would otherwise still be found in its slot.
+            remove(key);
+        }
+
+        CompanyDetails companyDetails = new CompanyDetails();
+        companyDetails.setCompanyNumber(companyNumber);
+        companyDetails.setCompanyName(companyName);
+        overflowCache.put(companyNumber, companyDetails);
+
+        overflowPuts.increment();
+        puts.increment();
+    }
+
+    @Override
+    public void invalidate(final String companyNumber) {
+        long key = pack(companyNumber);
+        if (key != EMPTY) {
+            remove(key);
+        }
+        overflowCache.invalidate(companyNumber);
+    }
+
+    private void remove(final long key) {
+        int bucket = bucket(key);
+        ByteBuffer segment = segments[bucket / bucketsPerSegment];
+        int bucketStart = (bucket % bucketsPerSegment) * slotBytes * WAYS;
+
+        synchronized (locks[bucket % locks.length]) {
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucketStart + way * slotBytes;
+                if (segment.getLong(slot + KEY_OFFSET) == key) {
+                    clear(segment, slot);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isDueForRefresh(final String companyNumber) {
+        long key = pack(companyNumber);
+        if (refreshAfterWrite <= 0) {
+            return false;
+        }
+        if (key == EMPTY) {
+            return isOverflowDueForRefresh(companyNumber);
+        }
+
+        int bucket = bucket(key);
+        ByteBuffer segment = segments[bucket / bucketsPerSegment];
+        int bucketStart = (bucket % bucketsPerSegment) * slotBytes * WAYS;
+
+        synchronized (locks[bucket % locks.length]) {
+            for (int way = 0; way < WAYS; way++) {
+                int slot = bucketStart + way * slotBytes;
+                if (segment.getLong(slot + KEY_OFFSET) == key) {
+                    long age = clock.millis() - segment.getLong(slot + WRITTEN_OFFSET);
+                    return age >= refreshAfterWrite && age < expireAfterWrite;
+                }
+            }
+        }
+        return isOverflowDueForRefresh(companyNumber);
+    }
+
+    private boolean isOverflowDueForRefresh(final String companyNumber) {
+        OptionalLong age = overflowCache.policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(companyNumber, TimeUnit.MILLISECONDS))
+                .orElse(OptionalLong.empty());
+        return age.isPresent() && age.getAsLong() >= refreshAfterWrite;
+    }
+
+    @Override
+    public boolean isNotFound(final String companyNumber) {
+        return notFoundCache.getIfPresent(companyNumber) != null;
+    }
+
+    @Override
+    public void putNotFound(final String companyNumber) {
+        notFoundCache.put(companyNumber, Boolean.TRUE);
+    }
+
+    /**
+     * Pack a company number of up to eight ASCII characters into a long, one byte per character.
+     *
+     * @return the key, or {@code 0} if the company number cannot be packed.
+     */
+    static long pack(final String companyNumber) {
+        if (companyNumber == null || companyNumber.isEmpty() || companyNumber.length() > KEY_BYTES) {
+            return EMPTY;
+        }
+        long key = 0L;
+        for (int i = 0; i < companyNumber.length(); i++) {
+            char c = companyNumber.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return EMPTY;
+            }
+            key = (key << Byte.SIZE) | c;
+        }
+        return key;
+    }
+
+    private int bucket(final long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & bucketMask;
+    }
+
+    private String readName(final ByteBuffer segment, final int slot) {
+        short length = segment.getShort(slot + NAME_LENGTH_OFFSET);
+        if (length == NULL_NAME) {
+            return null;
+        }
+        byte[] name = new byte[length];
+        segment.get(slot + NAME_OFFSET, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private void clear(final ByteBuffer segment, final int slot) {
+        segment.putLong(slot + KEY_OFFSET, EMPTY);
+        size.decrementAndGet();
+    }
+
+    private static double capacityBytes(final ByteBuffer[] segments) {
+        double bytes = 0;
+        for (ByteBuffer segment : segments) {
+            bytes += segment.capacity();
+        }
+        return bytes;
+    }
+}
@@ -1,16 +1,30 @@
 package uk.gov.companieshouse.monitornotification.matcher.config;
 
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v5.Apache5HttpTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import java.util.function.Supplier;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import uk.gov.companieshouse.api.InternalApiClient;
-import uk.gov.companieshouse.api.http.ApiKeyHttpClient;
 import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.HttpClientPoolProperties;
 
 @Configuration
 public class ApiClientConfig {
 
+    static final String POOL_NAME = "internal-api";
+
     private final Logger logger;
 
     /**
@@ -20,33 +34,75 @@ public class ApiClientConfig {
         this.logger = logger;
     }
 
+    /**
+     * The connection pool shared by the Company Profile and CHS Kafka API clients. The per-route limit applies
+     * to each API separately, and the pool statistics are published as the {@code httpcomponents.httpclient.pool.*}
+     * metrics, tagged {@code httpclient=internal-api}.
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager internalApiConnectionManager(final HttpClientPoolProperties properties,
+            final MeterRegistry registry) {
+        logger.trace("internalApiConnectionManager(maxTotal=%d, maxPerRoute=%d) method called."
+                .formatted(properties.getMaxTotal(), properties.getMaxPerRoute()));
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxTotal())
+                .setMaxConnPerRoute(properties.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(registry);
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient internalApiHttpClient(final PoolingHttpClientConnectionManager connectionManager,
+            final HttpClientPoolProperties properties) {
+        TimeValue keepAlive = TimeValue.ofMilliseconds(properties.getKeepAlive());
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                // Honour a shorter keep-alive advertised by the server, but never hold a connection for longer.
+                .setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE
+                        .getKeepAliveDuration(response, context).min(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleEviction()))
+                .build();
+    }
+
+    @Bean
+    public HttpTransport internalApiHttpTransport(final CloseableHttpClient internalApiHttpClient) {
+        return new Apache5HttpTransport(internalApiHttpClient);
+    }
+
     @Bean("internalPrivateApiClientSupplier")
     public Supplier<InternalApiClient> internalPrivateApiClientSupplier(
             @Value("${spring.internal.private.api.url}") String apiUrl,
-            @Value("${spring.internal.private.api.key}") String apiKey) {
+            @Value("${spring.internal.private.api.key}") String apiKey,
+            @Qualifier("internalApiHttpTransport") HttpTransport transport) {
         logger.trace("internalPrivateApiClientSupplier(url=%s) method called.".formatted(apiUrl));
 
-        // Company Profile API
-        return () -> {
-            var client = new InternalApiClient(new ApiKeyHttpClient(apiKey));
-            client.setInternalBasePath(apiUrl);
+        // Company Profile API (one client, shared by every lookup over the pooled transport)
+        var client = new InternalApiClient(new PooledApiKeyHttpClient(apiKey, transport));
+        client.setInternalBasePath(apiUrl);
 
-            return client;
-        };
+        return () -> client;
     }
 
     @Bean("internalKafkaApiClientSupplier")
     public Supplier<InternalApiClient> internalKafkaApiClientSupplier(
             @Value("${spring.internal.kafka.api.url}") String apiUrl,
-            @Value("${spring.internal.kafka.api.key}") String apiKey) {
+            @Value("${spring.internal.kafka.api.key}") String apiKey,
+            @Qualifier("internalApiHttpTransport") HttpTransport transport) {
         logger.trace("internalKafkaApiClientSupplier(url=%s) method called.".formatted(apiUrl));
 
         // CHS Kafka API
-        return () -> {
-            var client = new InternalApiClient(new ApiKeyHttpClient(apiKey));
-            client.setBasePath(apiUrl);
+        var client = new InternalApiClient(new PooledApiKeyHttpClient(apiKey, transport));
+        client.setBasePath(apiUrl);
 
-            return client;
-        };
+        return () -> client;
     }
 }
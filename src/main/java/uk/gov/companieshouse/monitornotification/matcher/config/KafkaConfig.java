@@ -1,30 +1,44 @@
 package uk.gov.companieshouse.monitornotification.matcher.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import monitor.filing;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.retrytopic.DltStrategy;
 import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
 import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CommitStrategy;
 import uk.gov.companieshouse.monitornotification.matcher.config.properties.NotificationMatchConsumerProperties;
+import uk.gov.companieshouse.monitornotification.matcher.consumer.NotificationMatchCommitCallback;
+import uk.gov.companieshouse.monitornotification.matcher.consumer.NotificationMatchRebalanceListener;
 import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
 import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableTopicErrorInterceptor;
 import uk.gov.companieshouse.monitornotification.matcher.serdes.GenericSerializer;
@@ -35,8 +49,14 @@ import uk.gov.companieshouse.monitornotification.matcher.serdes.NotificationMatc
 @Profile("!test")
 public class KafkaConfig {
 
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_BATCH_MAX_WAIT = 500L;
+
     private final NotificationMatchConsumerProperties properties;
     private final String bootstrapServers;
+    private final NotificationMatchRebalanceListener rebalanceListener;
+    private final NotificationMatchCommitCallback commitCallback;
+    private final MeterRegistry meterRegistry;
     private final Logger logger;
 
     /**
@@ -44,9 +64,15 @@ public class KafkaConfig {
      */
     public KafkaConfig(NotificationMatchConsumerProperties newProperties,
             @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            NotificationMatchRebalanceListener rebalanceListener,
+            NotificationMatchCommitCallback commitCallback,
+            MeterRegistry meterRegistry,
             Logger logger) {
         this.properties = newProperties;
         this.bootstrapServers = bootstrapServers;
+        this.rebalanceListener = rebalanceListener;
+        this.commitCallback = commitCallback;
+        this.meterRegistry = meterRegistry;
         this.logger = logger;
     }
 
@@ -68,8 +94,53 @@ public class KafkaConfig {
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
 
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
-                new ErrorHandlingDeserializer<>(new NotificationMatchDeserializer()));
+        // The fetch settings are applied together from the selected profile (the batch factory overrides its own).
+        props.putAll(properties.getTuningProfile().getConsumerProperties());
+
+        // Only the partitions that move are revoked in a rebalance, rather than every partition in the group.
+        // The default strategy list already includes this assignor, so a running group can switch in one deploy.
+        if (properties.isCooperativeRebalancing()) {
+            props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        }
+
+        // A restarted consumer rejoins with its previous assignment (within the session timeout) without a rebalance.
+        // The ID must be unique to each instance and survive its restarts, so it is left unset on ECS, which has no
+        // stable slot identity (see the README). Each concurrent consumer is given its own ID, suffixed by the container.
+        if (StringUtils.isNotBlank(properties.getGroupInstanceId())) {
+            props.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, properties.getGroupInstanceId());
+        }
+
+        DefaultKafkaConsumerFactory<String, filing> factory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(new NotificationMatchDeserializer()));
+
+        // Publishes the Kafka client metrics, including the commit latency and rate of each consumer.
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        return factory;
+    }
+
+    /**
+     * Consumer factory for the local company store. The store reads the whole compacted topic itself, so its
+     * consumers have no group and never commit offsets.
+     */
+    @Bean("companyStoreConsumerFactory")
+    @ConditionalOnProperty(name = "spring.company.store.enabled", havingValue = "true")
+    public ConsumerFactory<String, String> companyStoreConsumerFactory() {
+        logger.trace("companyStoreConsumerFactory() method called.");
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+
+        DefaultKafkaConsumerFactory<String, String> factory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new StringDeserializer());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        return factory;
     }
 
     /**
@@ -104,12 +175,103 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, filing> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(kafkaConsumerFactory());
         factory.setConcurrency(properties.getConcurrency());
-        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        configureCommits(factory, ContainerProperties.AckMode.RECORD);
+        configureListenerThreads(factory);
+
+        return factory;
+    }
+
+    /**
+     * Kafka Batch Listener Container Factory, used when batch mode is enabled.
+     */
+    @Bean("kafkaBatchListenerContainerFactory")
+    public ConcurrentKafkaListenerContainerFactory<String, filing> kafkaBatchListenerContainerFactory(
+            KafkaTemplate<String, Object> template) {
+        logger.trace("kafkaBatchListenerContainerFactory() method called.");
+
+        ConcurrentKafkaListenerContainerFactory<String, filing> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(kafkaConsumerFactory());
+        factory.setConcurrency(properties.getConcurrency());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+        configureCommits(factory, ContainerProperties.AckMode.BATCH);
+        configureListenerThreads(factory);
+
+        // The batch size and wait limits only apply to this factory's consumers.
+        Properties batchProperties = new Properties();
+        putBatchProperty(batchProperties, ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.getBatchSize(), DEFAULT_BATCH_SIZE);
+        putBatchProperty(batchProperties, ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, properties.getBatchMaxWait(), DEFAULT_BATCH_MAX_WAIT);
+        factory.getContainerProperties().setKafkaConsumerProperties(batchProperties);
+
+        factory.setCommonErrorHandler(batchErrorHandler(template));
 
         return factory;
     }
 
+    /**
+     * A batch limit that has been set explicitly wins. Otherwise the tuning profile's setting stands, and only
+     * when the profile has none is the default batch limit applied.
+     */
+    private void putBatchProperty(Properties batchProperties, String name, Number configured, Number defaultValue) {
+        if (configured != null) {
+            batchProperties.put(name, String.valueOf(configured));
+        } else if (!properties.getTuningProfile().getConsumerProperties().containsKey(name)) {
+            batchProperties.put(name, String.valueOf(defaultValue));
+        }
+    }
+
+    /**
+     * Commit synchronously after every record (or batch), or when batched, asynchronously every N records or
+     * T milliseconds. Pending offsets are flushed synchronously by the rebalance listener when partitions are
+     * revoked, and by the consumer when it is closed, so records are still processed at least once.
+     */
+    private void configureCommits(ConcurrentKafkaListenerContainerFactory<String, filing> factory,
+            ContainerProperties.AckMode defaultAckMode) {
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setCommitCallback(commitCallback);
+
+        if (properties.getCommitStrategy() == CommitStrategy.BATCHED) {
+            containerProperties.setAckMode(ContainerProperties.AckMode.COUNT_TIME);
+            containerProperties.setAckCount(properties.getCommitCount());
+            containerProperties.setAckTime(properties.getCommitInterval());
+            containerProperties.setSyncCommits(false);
+        } else {
+            containerProperties.setAckMode(defaultAckMode);
+        }
+    }
+
+    /**
+     * Run each listener container's consumer on a virtual thread when enabled, so that the blocking
+     * Company Profile API, CHS Kafka API and Mongo calls made by the listener do not pin platform threads.
+     */
+    private void configureListenerThreads(ConcurrentKafkaListenerContainerFactory<String, filing> factory) {
+        if (properties.isVirtualThreads()) {
+            var executor = new SimpleAsyncTaskExecutor("notification-match-listener-");
+            executor.setVirtualThreads(true);
+
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+
+    /**
+     * Retry topics are not supported for batch listeners, so a failed record is retried in place and then
+     * published to the dead letter topic. Records ahead of it in the batch are committed, not replayed.
+     * As with the retry topics, only a {@link RetryableException} is retried; anything else is sent straight on.
+     */
+    private DefaultErrorHandler batchErrorHandler(KafkaTemplate<String, Object> template) {
+        var recoverer = new DeadLetterPublishingRecoverer(template,
+                (consumerRecord, ex) -> new TopicPartition(consumerRecord.topic() + "-dlt-error", -1));
+
+        var errorHandler = new DefaultErrorHandler(recoverer,
+                new FixedBackOff(properties.getBackOffDelay(), Math.max(properties.getMaxAttempts() - 1, 0)));
+        errorHandler.setClassifications(Map.of(RetryableException.class, true), false);
+
+        return errorHandler;
+    }
+
     @Bean
+    @ConditionalOnProperty(name = "spring.kafka.consumer.notify.batch-enabled", havingValue = "false", matchIfMissing = true)
     public RetryTopicConfiguration retryTopicConfiguration(
             KafkaTemplate<String, Object> template,
             @Value("${spring.kafka.consumer.notify.max-attempts}") int attempts,
@@ -0,0 +1,45 @@
+package uk.gov.companieshouse.monitornotification.matcher.config;
+
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpTransport;
+import uk.gov.companieshouse.api.http.ApiKeyHttpClient;
+
+/**
+ * An {@link ApiKeyHttpClient} whose requests go through a shared, pooled transport rather than a new
+ * connection each time. A single instance (and request factory) serves every caller of an API, so the
+ * request ID is held for the calling thread, which sets it before each request.
+ */
+class PooledApiKeyHttpClient extends ApiKeyHttpClient {
+
+    static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private final ThreadLocal<String> requestId = new ThreadLocal<>();
+    private final HttpRequestFactory requestFactory;
+
+    PooledApiKeyHttpClient(final String apiKey, final HttpTransport transport) {
+        super(apiKey);
+        // The API key is the basic authentication user name, as the SDK sends it.
+        this.requestFactory = transport.createRequestFactory(request -> {
+            request.getHeaders().setBasicAuthentication(apiKey, "");
+            String id = requestId.get();
+            if (id != null) {
+                request.getHeaders().set(REQUEST_ID_HEADER, id);
+            }
+        });
+    }
+
+    @Override
+    public HttpRequestFactory getHttpRequestFactory() {
+        return requestFactory;
+    }
+
+    @Override
+    public void setRequestId(final String requestId) {
+        this.requestId.set(requestId);
+    }
+
+    @Override
+    public String getRequestId() {
+        return requestId.get();
+    }
+}
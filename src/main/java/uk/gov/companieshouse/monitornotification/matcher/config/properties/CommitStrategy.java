@@ -0,0 +1,18 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+/**
+ * When the offsets of processed messages are committed.
+ */
+public enum CommitStrategy {
+
+    /**
+     * Synchronously, after every message (or every poll, in batch mode).
+     */
+    RECORD,
+
+    /**
+     * Asynchronously, after a number of messages or an interval, whichever comes first. Offsets still pending
+     * are committed synchronously when partitions are revoked and when the consumer is closed.
+     */
+    BATCHED
+}
@@ -0,0 +1,17 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+/**
+ * Where the company details cache holds its entries.
+ */
+public enum CompanyCacheBackend {
+
+    /**
+     * Company details objects on the heap, with frequency-based admission.
+     */
+    CAFFEINE,
+
+    /**
+     * Company numbers and names packed into fixed-width slots in direct memory, outside the heap.
+     */
+    OFF_HEAP
+}
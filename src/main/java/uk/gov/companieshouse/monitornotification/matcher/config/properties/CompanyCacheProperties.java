@@ -0,0 +1,127 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "spring.company.cache")
+@Component
+public class CompanyCacheProperties {
+
+    private boolean enabled;
+    private CompanyCacheBackend backend = CompanyCacheBackend.CAFFEINE;
+    private long maximumSize;
+    private long expireAfterWrite;
+    private long refreshAfterWrite;
+    private long notFoundMaximumSize;
+    private long notFoundExpireAfterWrite;
+    private boolean snapshotEnabled;
+    private String snapshotPath;
+    private long snapshotInterval;
+    private long snapshotMaxAge;
+    private int offHeapNameBytes;
+    private long offHeapOverflowMaximumSize;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public CompanyCacheBackend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(CompanyCacheBackend backend) {
+        this.backend = backend;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public long getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public void setRefreshAfterWrite(long refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+
+    public long getNotFoundMaximumSize() {
+        return notFoundMaximumSize;
+    }
+
+    public void setNotFoundMaximumSize(long notFoundMaximumSize) {
+        this.notFoundMaximumSize = notFoundMaximumSize;
+    }
+
+    public long getNotFoundExpireAfterWrite() {
+        return notFoundExpireAfterWrite;
+    }
+
+    public void setNotFoundExpireAfterWrite(long notFoundExpireAfterWrite) {
+        this.notFoundExpireAfterWrite = notFoundExpireAfterWrite;
+    }
+
+    public boolean isSnapshotEnabled() {
+        return snapshotEnabled;
+    }
+
+    public void setSnapshotEnabled(boolean snapshotEnabled) {
+        this.snapshotEnabled = snapshotEnabled;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public long getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(long snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public long getSnapshotMaxAge() {
+        return snapshotMaxAge;
+    }
+
+    public void setSnapshotMaxAge(long snapshotMaxAge) {
+        this.snapshotMaxAge = snapshotMaxAge;
+    }
+
+    public int getOffHeapNameBytes() {
+        return offHeapNameBytes;
+    }
+
+    public void setOffHeapNameBytes(int offHeapNameBytes) {
+        this.offHeapNameBytes = offHeapNameBytes;
+    }
+
+    public long getOffHeapOverflowMaximumSize() {
+        return offHeapOverflowMaximumSize;
+    }
+
+    public void setOffHeapOverflowMaximumSize(long offHeapOverflowMaximumSize) {
+        this.offHeapOverflowMaximumSize = offHeapOverflowMaximumSize;
+    }
+}
@@ -0,0 +1,226 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "spring.company.lookup")
+@Component
+public class CompanyLookupProperties {
+
+    private long timeout;
+    private int threads;
+    private boolean virtualThreads;
+    private float failureRateThreshold;
+    private float slowCallRateThreshold;
+    private long slowCallDuration;
+    private int slidingWindowSize;
+    private int minimumNumberOfCalls;
+    private long waitInOpenState;
+    private int maxConcurrentCalls;
+    private long maxWaitDuration;
+    private boolean hedgeEnabled;
+    private double hedgePercentile;
+    private long hedgeMinimumDelay;
+    private double hedgeBudget;
+    private double timeoutPercentile;
+    private double timeoutMultiplier;
+    private long minimumTimeout;
+    private long latencyWindow;
+    private boolean batchEnabled;
+    private long batchWindow;
+    private int batchMaxSize;
+    private int batchMaxInFlight;
+    private long queueTimeout;
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(float failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public void setSlowCallDuration(long slowCallDuration) {
+        this.slowCallDuration = slowCallDuration;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public long getWaitInOpenState() {
+        return waitInOpenState;
+    }
+
+    public void setWaitInOpenState(long waitInOpenState) {
+        this.waitInOpenState = waitInOpenState;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public long getMaxWaitDuration() {
+        return maxWaitDuration;
+    }
+
+    public void setMaxWaitDuration(long maxWaitDuration) {
+        this.maxWaitDuration = maxWaitDuration;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public void setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public long getHedgeMinimumDelay() {
+        return hedgeMinimumDelay;
+    }
+
+    public void setHedgeMinimumDelay(long hedgeMinimumDelay) {
+        this.hedgeMinimumDelay = hedgeMinimumDelay;
+    }
+
+    public double getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    public void setHedgeBudget(double hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    public double getTimeoutPercentile() {
+        return timeoutPercentile;
+    }
+
+    public void setTimeoutPercentile(double timeoutPercentile) {
+        this.timeoutPercentile = timeoutPercentile;
+    }
+
+    public double getTimeoutMultiplier() {
+        return timeoutMultiplier;
+    }
+
+    public void setTimeoutMultiplier(double timeoutMultiplier) {
+        this.timeoutMultiplier = timeoutMultiplier;
+    }
+
+    public long getMinimumTimeout() {
+        return minimumTimeout;
+    }
+
+    public void setMinimumTimeout(long minimumTimeout) {
+        this.minimumTimeout = minimumTimeout;
+    }
+
+    public long getLatencyWindow() {
+        return latencyWindow;
+    }
+
+    public void setLatencyWindow(long latencyWindow) {
+        this.latencyWindow = latencyWindow;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    public void setBatchWindow(long batchWindow) {
+        this.batchWindow = batchWindow;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public int getBatchMaxInFlight() {
+        return batchMaxInFlight;
+    }
+
+    public void setBatchMaxInFlight(int batchMaxInFlight) {
+        this.batchMaxInFlight = batchMaxInFlight;
+    }
+
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public void setQueueTimeout(long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+}
@@ -0,0 +1,62 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+import static org.apache.kafka.clients.consumer.ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG;
+import static org.apache.kafka.clients.consumer.ConsumerConfig.FETCH_MIN_BYTES_CONFIG;
+import static org.apache.kafka.clients.consumer.ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG;
+import static org.apache.kafka.clients.consumer.ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG;
+import static org.apache.kafka.clients.consumer.ConsumerConfig.MAX_POLL_RECORDS_CONFIG;
+
+import java.util.Map;
+
+/**
+ * Named sets of consumer fetch settings, so that the consumers can be moved between steady state and
+ * draining a backlog by changing a single property.
+ */
+public enum ConsumerTuningProfile {
+
+    /**
+     * The Kafka client defaults.
+     */
+    DEFAULT(Map.of()),
+
+    /**
+     * Larger fetches that wait for more data, for a steady flow of notifications.
+     */
+    THROUGHPUT(Map.of(
+            MAX_POLL_RECORDS_CONFIG, 500,
+            FETCH_MIN_BYTES_CONFIG, 64 * 1024,
+            FETCH_MAX_WAIT_MS_CONFIG, 500,
+            MAX_PARTITION_FETCH_BYTES_CONFIG, 2 * 1024 * 1024,
+            MAX_POLL_INTERVAL_MS_CONFIG, 300_000)),
+
+    /**
+     * Small fetches returned as soon as any data is available, so each notification is handled promptly.
+     */
+    LATENCY(Map.of(
+            MAX_POLL_RECORDS_CONFIG, 50,
+            FETCH_MIN_BYTES_CONFIG, 1,
+            FETCH_MAX_WAIT_MS_CONFIG, 50,
+            MAX_PARTITION_FETCH_BYTES_CONFIG, 1024 * 1024,
+            MAX_POLL_INTERVAL_MS_CONFIG, 120_000)),
+
+    /**
+     * The largest fetches, for draining a backlog. The poll interval allows for a full poll of records
+     * each making Company Profile API and CHS Kafka API calls.
+     */
+    CATCH_UP(Map.of(
+            MAX_POLL_RECORDS_CONFIG, 1000,
+            FETCH_MIN_BYTES_CONFIG, 1024 * 1024,
+            FETCH_MAX_WAIT_MS_CONFIG, 500,
+            MAX_PARTITION_FETCH_BYTES_CONFIG, 8 * 1024 * 1024,
+            MAX_POLL_INTERVAL_MS_CONFIG, 900_000));
+
+    private final Map<String, Object> consumerProperties;
+
+    ConsumerTuningProfile(final Map<String, Object> consumerProperties) {
+        this.consumerProperties = consumerProperties;
+    }
+
+    public Map<String, Object> getConsumerProperties() {
+        return consumerProperties;
+    }
+}
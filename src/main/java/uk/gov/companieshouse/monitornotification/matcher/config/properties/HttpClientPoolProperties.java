@@ -0,0 +1,55 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties(prefix = "spring.internal.http-client")
+@Component
+public class HttpClientPoolProperties {
+
+    private int maxTotal;
+    private int maxPerRoute;
+    private long keepAlive;
+    private long idleEviction;
+    private long validateAfterInactivity;
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long getIdleEviction() {
+        return idleEviction;
+    }
+
+    public void setIdleEviction(long idleEviction) {
+        this.idleEviction = idleEviction;
+    }
+
+    public long getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public void setValidateAfterInactivity(long validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+}
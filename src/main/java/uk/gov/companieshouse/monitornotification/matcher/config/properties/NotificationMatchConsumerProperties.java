@@ -12,6 +12,18 @@ public class NotificationMatchConsumerProperties {
     private int maxAttempts;
     private long backOffDelay;
     private int concurrency;
+    private boolean batchEnabled;
+    private Integer batchSize;
+    private Long batchMaxWait;
+    private ProcessingMode processingMode = ProcessingMode.SEQUENTIAL;
+    private int maxInFlight;
+    private boolean virtualThreads;
+    private ConsumerTuningProfile tuningProfile = ConsumerTuningProfile.DEFAULT;
+    private boolean cooperativeRebalancing;
+    private String groupInstanceId;
+    private CommitStrategy commitStrategy = CommitStrategy.RECORD;
+    private int commitCount;
+    private long commitInterval;
 
     public String getTopic() {
         return topic;
@@ -52,5 +64,100 @@ public class NotificationMatchConsumerProperties {
     public void setConcurrency(int concurrency) {
         this.concurrency = concurrency;
     }
-}
 
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Long getBatchMaxWait() {
+        return batchMaxWait;
+    }
+
+    public void setBatchMaxWait(Long batchMaxWait) {
+        this.batchMaxWait = batchMaxWait;
+    }
+
+    public ProcessingMode getProcessingMode() {
+        return processingMode;
+    }
+
+    public void setProcessingMode(ProcessingMode processingMode) {
+        this.processingMode = processingMode;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public ConsumerTuningProfile getTuningProfile() {
+        return tuningProfile;
+    }
+
+    public void setTuningProfile(ConsumerTuningProfile tuningProfile) {
+        this.tuningProfile = tuningProfile;
+    }
+
+    public boolean isCooperativeRebalancing() {
+        return cooperativeRebalancing;
+    }
+
+    public void setCooperativeRebalancing(boolean cooperativeRebalancing) {
+        this.cooperativeRebalancing = cooperativeRebalancing;
+    }
+
+    public String getGroupInstanceId() {
+        return groupInstanceId;
+    }
+
+    public void setGroupInstanceId(String groupInstanceId) {
+        this.groupInstanceId = groupInstanceId;
+    }
+
+    public CommitStrategy getCommitStrategy() {
+        return commitStrategy;
+    }
+
+    public void setCommitStrategy(CommitStrategy commitStrategy) {
+        this.commitStrategy = commitStrategy;
+    }
+
+    public int getCommitCount() {
+        return commitCount;
+    }
+
+    public void setCommitCount(int commitCount) {
+        this.commitCount = commitCount;
+    }
+
+    public long getCommitInterval() {
+        return commitInterval;
+    }
+
+    public void setCommitInterval(long commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.companieshouse.monitornotification.matcher.config.properties;
+
+/**
+ * How the messages within a batch are processed.
+ */
+public enum ProcessingMode {
+
+    /**
+     * One message at a time, in offset order.
+     */
+    SEQUENTIAL,
+
+    /**
+     * In parallel, with the messages for any one company number processed one at a time in offset order.
+     */
+    KEY_ORDERED
+}
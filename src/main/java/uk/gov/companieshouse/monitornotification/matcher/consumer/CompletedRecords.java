@@ -0,0 +1,103 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.stereotype.Component;
+
+/**
+ * The records of each partition that were processed ahead of an earlier failure in their batch, so that they can
+ * be skipped however many times the failed record is delivered again.<br>
+ * <br>
+ * A record is remembered until its partition is committed past it, or is next delivered from beyond it (as
+ * synchronous commits are not reported to the commit callback). Every record of a partition is forgotten when the
+ * partition is revoked or lost, as its next owner starts again from the committed offset.
+ */
+@Component
+public class CompletedRecords {
+
+    private final Map<TopicPartition, NavigableSet<Long>> completed = new ConcurrentHashMap<>();
+
+    /**
+     * Remember that the record has been processed, ahead of a failed record that will be delivered again.
+     */
+    public void add(final Message<?> message) {
+        TopicPartition partition = partitionOf(message);
+        Long offset = offsetOf(message);
+        if (partition != null && offset != null) {
+            completed.computeIfAbsent(partition, key -> new ConcurrentSkipListSet<>()).add(offset);
+        }
+    }
+
+    /**
+     * Whether the record was processed ahead of an earlier failure, and so must not be processed again.
+     */
+    public boolean contains(final Message<?> message) {
+        TopicPartition partition = partitionOf(message);
+        Long offset = offsetOf(message);
+        if (partition == null || offset == null) {
+            return false;
+        }
+        NavigableSet<Long> offsets = completed.get(partition);
+        return offsets != null && offsets.contains(offset);
+    }
+
+    /**
+     * Forget the records of each partition before its first record in a new delivery, as the consumer has moved
+     * past them and they will not be delivered again.
+     */
+    public void delivered(final List<? extends Message<?>> messages) {
+        Set<TopicPartition> seen = new HashSet<>();
+        for (Message<?> message : messages) {
+            TopicPartition partition = partitionOf(message);
+            Long offset = offsetOf(message);
+            if (partition != null && offset != null && seen.add(partition)) {
+                forgetBefore(partition, offset);
+            }
+        }
+    }
+
+    /**
+     * Forget the records that the committed offsets have passed.
+     */
+    public void committed(final Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> forgetBefore(partition, offset.offset()));
+    }
+
+    /**
+     * Forget every record of partitions no longer assigned to this consumer.
+     */
+    public void forget(final Collection<TopicPartition> partitions) {
+        partitions.forEach(completed::remove);
+    }
+
+    private void forgetBefore(final TopicPartition partition, final long offset) {
+        completed.computeIfPresent(partition, (key, offsets) -> {
+            offsets.headSet(offset).clear();
+            return offsets.isEmpty() ? null : offsets;
+        });
+    }
+
+    private static TopicPartition partitionOf(final Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (headers.get(KafkaHeaders.RECEIVED_TOPIC) instanceof String topic
+                && headers.get(KafkaHeaders.RECEIVED_PARTITION) instanceof Integer partition) {
+            return new TopicPartition(topic, partition);
+        }
+        return null;
+    }
+
+    private static Long offsetOf(final Message<?> message) {
+        return message.getHeaders().get(KafkaHeaders.OFFSET) instanceof Long offset ? offset : null;
+    }
+}
@@ -16,7 +16,8 @@ import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
 
 /**
  * Logs message details before and after it has been processed by
- * the {@link NotificationMatchConsumer main consumer}.<br>
+ * the {@link NotificationMatchConsumer main consumer}. The {@link NotificationMatchBatchConsumer batch consumer}
+ * logs each message of a batch in the same way.<br>
  * <br>
  * Details that will be logged will include:
  * <ul>
@@ -30,8 +31,8 @@ import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
 @Aspect
 public class MessageLoggingAspect {
 
-    private static final String LOG_MESSAGE_RECEIVED = "Processing kafka message";
-    private static final String LOG_MESSAGE_PROCESSED = "Processed kafka message";
+    static final String LOG_MESSAGE_RECEIVED = "Processing kafka message";
+    static final String LOG_MESSAGE_PROCESSED = "Processed kafka message";
 
     private final Logger logger;
 
@@ -49,7 +50,10 @@ public class MessageLoggingAspect {
         logMessage(LOG_MESSAGE_PROCESSED, (Message<?>)joinPoint.getArgs()[0]);
     }
 
-    private void logMessage(final String logMessage, final Message<?> incomingMessage) {
+    /**
+     * @return the request ID of the message, taken from its correlation ID.
+     */
+    String logMessage(final String logMessage, final Message<?> incomingMessage) {
         MessageHeaders messageHeaders = incomingMessage.getHeaders();
 
         var topic = (String) Optional.ofNullable(messageHeaders.get(KafkaHeaders.RECEIVED_TOPIC)).orElse("no topic");
@@ -69,6 +73,8 @@ public class MessageLoggingAspect {
         DataMapHolder.initialise(correlationId);
 
         logger.debug(logMessage, dataMap.getLogMap());
+
+        return correlationId;
     }
 }
 
@@ -0,0 +1,163 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import static uk.gov.companieshouse.monitornotification.matcher.consumer.MessageLoggingAspect.LOG_MESSAGE_PROCESSED;
+import static uk.gov.companieshouse.monitornotification.matcher.consumer.MessageLoggingAspect.LOG_MESSAGE_RECEIVED;
+
+import java.util.ArrayList;
+import java.util.List;
+import monitor.filing;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+import uk.gov.companieshouse.monitornotification.matcher.processor.MessageProcessor;
+
+/**
+ * Consumes every record returned by a poll in one call, replacing the {@link NotificationMatchConsumer}
+ * when batch mode is enabled.<br>
+ * <br>
+ * Each record is logged, and processed under its own request ID, as the {@link MessageLoggingAspect} does for
+ * the main consumer. A failure is reported against the record that caused it, so the records ahead of it are
+ * committed and only the failed record (and those after it) are retried or sent to the dead letter topic. A
+ * record that could not be de-serialised is reported once the records ahead of it have been processed.
+ * Records after it that had already been processed are remembered by {@link CompletedRecords}, and skipped
+ * whenever they are delivered again, so that their notifications are not sent twice.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.consumer.notify.batch-enabled", havingValue = "true")
+public class NotificationMatchBatchConsumer {
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(NotificationMatchBatchConsumer.class);
+
+    private final MessageProcessor processor;
+    private final MessageLoggingAspect messageLogger;
+    private final Logger logger;
+    private final CompletedRecords completedRecords;
+
+    /**
+     * Mandatory constructor.
+     * @param processor the processor to delegate message processing to.
+     * @param messageLogger the aspect used to log each message of the batch.
+     * @param completedRecords the records already processed ahead of an earlier failure.
+     * @param logger the logger to use for logging.
+     */
+    public NotificationMatchBatchConsumer(MessageProcessor processor, MessageLoggingAspect messageLogger,
+            CompletedRecords completedRecords, Logger logger) {
+        this.processor = processor;
+        this.messageLogger = messageLogger;
+        this.completedRecords = completedRecords;
+        this.logger = logger;
+    }
+
+    /**
+     * Consume a batch of messages from the main Kafka topic.
+     * @param messages The messages returned by a single poll.
+     */
+    @KafkaListener(
+            containerFactory = "kafkaBatchListenerContainerFactory",
+            topics = "${spring.kafka.consumer.notify.topic}",
+            groupId = "${spring.kafka.consumer.notify.group-id}",
+            autoStartup = "true"
+    )
+    public void consume(final List<Message<filing>> messages) {
+        logger.debug("consume(messages=%d) method called.".formatted(messages.size()));
+
+        List<filing> payloads = new ArrayList<>(messages.size());
+        List<String> requestIds = new ArrayList<>(messages.size());
+        List<Integer> positions = new ArrayList<>(messages.size());
+        BatchListenerFailedException deserializationFailure = null;
+        completedRecords.delivered(messages);
+        for (int index = 0; index < messages.size(); index++) {
+            Message<filing> message = messages.get(index);
+            if (completedRecords.contains(message)) {
+                messageLogger.logMessage("Skipping kafka message already processed ahead of an earlier failure", message);
+                continue;
+            }
+
+            String requestId = messageLogger.logMessage(LOG_MESSAGE_RECEIVED, message);
+
+            // Records that failed to de-serialise reach a batch listener without a filing payload. The records
+            // ahead of it are still processed, as the container commits them when the failure is reported.
+            Object payload = message.getPayload();
+            if (!(payload instanceof filing notificationMatch)) {
+                deserializationFailure = new BatchListenerFailedException("Message could not be de-serialised",
+                        deserializationFailure(message), index);
+                break;
+            }
+            payloads.add(notificationMatch);
+            requestIds.add(requestId);
+            positions.add(index);
+        }
+
+        if (!payloads.isEmpty()) {
+            processMessages(messages, payloads, requestIds, positions);
+        }
+
+        if (deserializationFailure != null) {
+            throw deserializationFailure;
+        }
+    }
+
+    private void processMessages(final List<Message<filing>> messages, final List<filing> payloads,
+            final List<String> requestIds, final List<Integer> positions) {
+        try {
+            // Process the whole poll via the message processor.
+            processor.processMessages(payloads, requestIds);
+
+        } catch (BatchProcessingException ex) {
+            var cause = ex.getCause();
+
+            if (cause instanceof RetryableException) {
+                logger.error("Retryable exception encountered processing message.", ex, DataMapHolder.getLogMap());
+            } else {
+                logger.error("Non-Retryable exception encountered processing message!", ex, DataMapHolder.getLogMap());
+            }
+
+            // Only the records that completed are logged as processed: those ahead of the failure, and any after it.
+            for (int completed = 0; completed < ex.getIndex(); completed++) {
+                messageLogger.logMessage(LOG_MESSAGE_PROCESSED, messages.get(positions.get(completed)));
+            }
+
+            // The failed record and those after it are delivered again; remember which of them are already done.
+            ex.getCompletedAfter().forEach(completed -> {
+                Message<filing> message = messages.get(positions.get(completed));
+                completedRecords.add(message);
+                messageLogger.logMessage(LOG_MESSAGE_PROCESSED, message);
+            });
+
+            throw new BatchListenerFailedException(ex.getMessage(), cause, positions.get(ex.getIndex()));
+        }
+
+        for (Integer position : positions) {
+            messageLogger.logMessage(LOG_MESSAGE_PROCESSED, messages.get(position));
+        }
+    }
+
+    /**
+     * The exception raised by the deserializer is kept as the cause, so the record is routed to the invalid
+     * topic when it was a {@link consumer.exception.NonRetryableErrorException}, as it is for the main consumer.
+     */
+    private static RuntimeException deserializationFailure(final Message<?> message) {
+        Object header = message.getHeaders().get(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+        if (header instanceof DeserializationException ex) {
+            return ex;
+        }
+        if (header instanceof Header kafkaHeader) {
+            DeserializationException ex = SerializationUtils.byteArrayToDeserializationException(LOG_ACCESSOR, kafkaHeader);
+            if (ex != null) {
+                return ex;
+            }
+        }
+        return new NonRetryableException("Message could not be de-serialised");
+    }
+}
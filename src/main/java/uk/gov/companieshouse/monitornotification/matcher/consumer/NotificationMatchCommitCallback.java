@@ -0,0 +1,56 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Counts the offset commits made by the listener containers, by outcome. The commit latency itself is
+ * reported by the Kafka client metrics ({@code kafka.consumer.coordinator.commit.latency.*}).<br>
+ * <br>
+ * A failed asynchronous commit is not retried, as a later commit (or the synchronous commit made when
+ * the partition is revoked) covers the same offsets. A successful commit releases the {@link CompletedRecords}
+ * it has passed.
+ */
+@Component
+public class NotificationMatchCommitCallback implements OffsetCommitCallback {
+
+    static final String COMMITS_METRIC = "notification.match.consumer.commits";
+
+    private final Counter successfulCommits;
+    private final Counter failedCommits;
+    private final CompletedRecords completedRecords;
+    private final Logger logger;
+
+    public NotificationMatchCommitCallback(final MeterRegistry registry, final CompletedRecords completedRecords,
+            final Logger logger) {
+        this.successfulCommits = Counter.builder(COMMITS_METRIC)
+                .description("Offset commits made by the notification match consumers")
+                .tag("result", "success")
+                .register(registry);
+        this.failedCommits = Counter.builder(COMMITS_METRIC)
+                .description("Offset commits made by the notification match consumers")
+                .tag("result", "failure")
+                .register(registry);
+        this.completedRecords = completedRecords;
+        this.logger = logger;
+    }
+
+    @Override
+    public void onComplete(final Map<TopicPartition, OffsetAndMetadata> offsets, final Exception exception) {
+        if (exception != null) {
+            failedCommits.increment();
+            logger.error("Offset commit failed, offsets will be committed by the next commit: %s".formatted(offsets), exception);
+            return;
+        }
+
+        successfulCommits.increment();
+        completedRecords.committed(offsets);
+        logger.debug("Offsets committed: %s".formatted(offsets));
+    }
+}
@@ -2,6 +2,7 @@ package uk.gov.companieshouse.monitornotification.matcher.consumer;
 
 import java.util.function.Consumer;
 import monitor.filing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
@@ -12,6 +13,7 @@ import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
 import uk.gov.companieshouse.monitornotification.matcher.processor.MessageProcessor;
 
 @Component
+@ConditionalOnProperty(name = "spring.kafka.consumer.notify.batch-enabled", havingValue = "false", matchIfMissing = true)
 public class NotificationMatchConsumer {
 
     private final MessageProcessor processor;
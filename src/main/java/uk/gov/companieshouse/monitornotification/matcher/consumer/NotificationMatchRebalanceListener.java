@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import java.util.Collection;
+import java.util.Collections;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+
+/**
+ * Reports the partitions moving to and from each consumer during a rebalance.<br>
+ * <br>
+ * The listener (and any batch dispatched by it) runs on the consumer thread, so records already polled
+ * from a revoked partition have been processed by the time the partition is revoked. The container then
+ * commits their offsets before the partition is handed over (and this listener waits for that commit to
+ * complete, when commits are asynchronous), so the new owner does not repeat them. With the
+ * cooperative-sticky assignor only the partitions actually moving are revoked; the rest keep consuming.
+ */
+@Component
+public class NotificationMatchRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final CompletedRecords completedRecords;
+    private final Logger logger;
+
+    public NotificationMatchRebalanceListener(final CompletedRecords completedRecords, final Logger logger) {
+        this.completedRecords = completedRecords;
+        this.logger = logger;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(final Consumer<?, ?> consumer, final Collection<TopicPartition> partitions) {
+        logger.trace("onPartitionsRevokedBeforeCommit(partitions=%s) method called.".formatted(partitions));
+
+        if (!partitions.isEmpty()) {
+            logger.info("Partitions revoked, committing processed offsets: %s".formatted(partitions));
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(final Consumer<?, ?> consumer, final Collection<TopicPartition> partitions) {
+        logger.trace("onPartitionsRevokedAfterCommit(partitions=%s) method called.".formatted(partitions));
+
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        // The next owner starts from the committed offset, so records completed ahead of a failure are not skipped.
+        completedRecords.forget(partitions);
+
+        // The container's commit may have been asynchronous; an empty synchronous commit waits for it to complete.
+        try {
+            consumer.commitSync(Collections.emptyMap());
+
+        } catch (KafkaException ex) {
+            logger.error("Unable to confirm offsets committed for revoked partitions: %s".formatted(partitions), ex);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(final Consumer<?, ?> consumer, final Collection<TopicPartition> partitions) {
+        logger.trace("onPartitionsLost(partitions=%s) method called.".formatted(partitions));
+
+        // The partitions already belong to another consumer, so there is nothing that can be committed for them.
+        completedRecords.forget(partitions);
+        logger.error("Partitions lost without being revoked, uncommitted records will be processed again: %s"
+                .formatted(partitions));
+    }
+
+    @Override
+    public void onPartitionsAssigned(final Consumer<?, ?> consumer, final Collection<TopicPartition> partitions) {
+        logger.trace("onPartitionsAssigned(partitions=%s) method called.".formatted(partitions));
+
+        if (!partitions.isEmpty()) {
+            logger.info("Partitions assigned: %s".formatted(partitions));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package uk.gov.companieshouse.monitornotification.matcher.exception;
+
+import java.util.Set;
+
+/**
+ * Raised when a message within a batch fails, recording the position of the failed message so that
+ * the messages ahead of it can be committed and only the remainder replayed. Messages after it that
+ * had already completed are recorded too, so that they are not processed again when replayed.
+ */
+public class BatchProcessingException extends RuntimeException {
+
+    private final int index;
+    private final Set<Integer> completedAfter;
+
+    public BatchProcessingException(int index, Throwable cause) {
+        this(index, cause, Set.of());
+    }
+
+    public BatchProcessingException(int index, Throwable cause, Set<Integer> completedAfter) {
+        super("Failed to process message at index %d of batch: %s".formatted(index, cause.getMessage()), cause);
+        this.index = index;
+        this.completedAfter = Set.copyOf(completedAfter);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the indexes after the failed message whose processing had already completed.
+     */
+    public Set<Integer> getCompletedAfter() {
+        return completedAfter;
+    }
+}
@@ -10,22 +10,26 @@ import org.apache.kafka.clients.producer.ProducerInterceptor;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+import uk.gov.companieshouse.monitornotification.matcher.serdes.NotificationMatchDeserializer;
 
 public class RetryableTopicErrorInterceptor implements ProducerInterceptor<String, Object> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
 
     @Override
-    public ProducerRecord<String, Object> onSend(final ProducerRecord<String, Object> record) {
-        LOGGER.trace("onSend(record=%s) method called.".formatted(record));
+    public ProducerRecord<String, Object> onSend(final ProducerRecord<String, Object> sent) {
+        LOGGER.trace("onSend(record=%s) method called.".formatted(sent));
 
+        ProducerRecord<String, Object> record = withOriginalValue(sent);
         String nextTopic = record.topic().contains("-dlt-error") ? getNextErrorTopic(record) : record.topic();
 
         LOGGER.info(String.format("Moving record into new topic: %s with value: %s",
-                        nextTopic, record.value()), DataMapHolder.getLogMap());
+                        nextTopic, sent.value()), DataMapHolder.getLogMap());
 
         if (nextTopic.contains("-invalid")) {
             return new ProducerRecord<>(nextTopic, record.key(), record.value());
@@ -49,6 +53,23 @@ public class RetryableTopicErrorInterceptor implements ProducerInterceptor<Strin
         LOGGER.trace("configure(map=%s) method called.".formatted(map));
     }
 
+    /**
+     * Records are decoded with only the fields the matcher uses, so a forwarded record is sent as the original
+     * bytes it was decoded from (which the serializer passes through unchanged), rather than re-encoded.
+     */
+    private ProducerRecord<String, Object> withOriginalValue(final ProducerRecord<String, Object> record) {
+        Header original = record.headers().lastHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER);
+        if (original == null) {
+            return record;
+        }
+
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        headers.remove(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER);
+
+        return new ProducerRecord<>(record.topic(), record.partition(), record.timestamp(), record.key(),
+                original.value(), headers);
+    }
+
     private String getNextErrorTopic(ProducerRecord<String, Object> record) {
         LOGGER.trace("getNextErrorTopic(record=%s) method called.".formatted(record));
 
@@ -1,6 +1,7 @@
 package uk.gov.companieshouse.monitornotification.matcher.logging;
 
 import java.util.Map;
+import java.util.function.Supplier;
 import uk.gov.companieshouse.logging.util.DataMap.Builder;
 
 public class DataMapHolder {
@@ -31,4 +32,32 @@ public class DataMapHolder {
     public static String getRequestId() {
         return (String) getLogMap().get("request_id");
     }
+
+    /**
+     * As {@link #propagate(Supplier)}, for a task with no result.
+     */
+    public static Runnable propagate(final Runnable task) {
+        Supplier<Void> propagated = propagate(() -> {
+            task.run();
+            return null;
+        });
+        return propagated::get;
+    }
+
+    /**
+     * Wrap a task that is handed off to another thread, so that it runs with the request ID of the
+     * thread that created it. The running thread's own context is restored once the task completes.
+     */
+    public static <T> Supplier<T> propagate(final Supplier<T> task) {
+        var requestId = getRequestId();
+        return () -> {
+            var previous = DATAMAP_BUILDER.get();
+            DATAMAP_BUILDER.set(new Builder().requestId(requestId));
+            try {
+                return task.get();
+            } finally {
+                DATAMAP_BUILDER.set(previous);
+            }
+        };
+    }
 }
@@ -0,0 +1,21 @@
+package uk.gov.companieshouse.monitornotification.matcher.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The filing history data nested within a {@link NotificationMatchPayload}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record FilingData(
+        @JsonProperty("type") String type,
+        @JsonProperty("description") String description,
+        @JsonProperty("date") String date,
+        @JsonProperty("description_values") Map<String, String> descriptionValues) {
+
+    public FilingData {
+        descriptionValues = descriptionValues == null ? Collections.emptyMap() : Collections.unmodifiableMap(descriptionValues);
+    }
+}
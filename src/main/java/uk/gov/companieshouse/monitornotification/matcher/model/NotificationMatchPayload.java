@@ -0,0 +1,15 @@
+package uk.gov.companieshouse.monitornotification.matcher.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The JSON payload carried in the {@code data} field of a notification match message. Only the
+ * values used by the matcher are bound; everything else in the payload is ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record NotificationMatchPayload(
+        @JsonProperty("company_number") String companyNumber,
+        @JsonProperty("is_delete") Boolean isDelete,
+        @JsonProperty("data") FilingData data) {
+}
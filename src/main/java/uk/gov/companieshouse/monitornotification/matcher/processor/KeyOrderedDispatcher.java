@@ -0,0 +1,145 @@
+package uk.gov.companieshouse.monitornotification.matcher.processor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.NotificationMatchConsumerProperties;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.ProcessingMode;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
+import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+
+/**
+ * Runs a task against every message within a batch, according to the configured {@link ProcessingMode}.<br>
+ * <br>
+ * In key-ordered mode the messages are split into lanes by key (e.g. company number). Lanes run in parallel
+ * while the messages within a lane run one at a time in batch order.
+ * A failure stops its own lane; the lowest failed index is then reported, so only the contiguous prefix of
+ * completed messages is committed. Messages in other lanes beyond that index may already have completed, and
+ * are reported alongside it so that they can be skipped when the remainder is replayed.<br>
+ * <br>
+ * Lanes always start with the request context of the listener. On platform threads, at most the configured
+ * number of lanes ({@code max-in-flight}) run at once. With virtual threads enabled that limit is lifted, and
+ * every lane of the batch starts at once on its own virtual thread, so the batch size alone bounds the blocking
+ * Company Profile API, Mongo and CHS Kafka API calls ({@code EmailService}) in flight.
+ */
+@Component
+public class KeyOrderedDispatcher {
+
+    private final ProcessingMode mode;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final Logger logger;
+
+    public KeyOrderedDispatcher(final NotificationMatchConsumerProperties properties, final Logger logger) {
+        this.mode = properties.getProcessingMode();
+        this.inFlight = properties.isVirtualThreads() ? null : new Semaphore(Math.max(properties.getMaxInFlight(), 1));
+        this.executor = mode == ProcessingMode.KEY_ORDERED ? buildExecutor(properties) : null;
+        this.logger = logger;
+    }
+
+    private static ExecutorService buildExecutor(final NotificationMatchConsumerProperties properties) {
+        if (properties.isVirtualThreads()) {
+            // A virtual thread per lane, all of which are in flight together.
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-match-worker-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(Math.max(properties.getMaxInFlight(), 1),
+                new CustomizableThreadFactory("notification-match-worker-"));
+    }
+
+    /**
+     * Run the task against every item. Any failure of a task, including an {@link Error}, is reported at its index.
+     *
+     * @param items the items, in offset order.
+     * @param keyFunction the key that items must be ordered by (only used in key-ordered mode).
+     * @param task the task to run against each item.
+     * @throws BatchProcessingException identifying the lowest index that failed, and any later indexes that completed.
+     */
+    public <T> void dispatch(final List<T> items, final Function<T, String> keyFunction, final Consumer<T> task) {
+        logger.trace("dispatch(items=%d, mode=%s) method called.".formatted(items.size(), mode));
+
+        if (executor == null) {
+            for (int index = 0; index < items.size(); index++) {
+                try {
+                    task.accept(items.get(index));
+                } catch (RuntimeException | Error ex) {
+                    throw new BatchProcessingException(index, unwrap(ex));
+                }
+            }
+            return;
+        }
+
+        Map<String, List<Integer>> lanes = new LinkedHashMap<>();
+        for (int index = 0; index < items.size(); index++) {
+            lanes.computeIfAbsent(keyFunction.apply(items.get(index)), key -> new ArrayList<>()).add(index);
+        }
+        logger.debug("Dispatching %d messages across %d lanes.".formatted(items.size(), lanes.size()));
+
+        ConcurrentSkipListMap<Integer, Throwable> failures = new ConcurrentSkipListMap<>();
+        Set<Integer> completed = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes.size());
+
+        for (List<Integer> lane : lanes.values()) {
+            futures.add(CompletableFuture.runAsync(DataMapHolder.propagate(() -> {
+                if (inFlight != null) {
+                    inFlight.acquireUninterruptibly();
+                }
+                try {
+                    for (int index : lane) {
+                        try {
+                            task.accept(items.get(index));
+                            completed.add(index);
+                        } catch (Throwable ex) {
+                            // Later items in this lane must not overtake the failed one, so they are left for the replay.
+                            failures.put(index, unwrap(ex));
+                            return;
+                        }
+                    }
+                } finally {
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                }
+            }), executor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        if (!failures.isEmpty()) {
+            var firstFailure = failures.firstEntry();
+            Set<Integer> completedAfter = completed.stream()
+                    .filter(index -> index > firstFailure.getKey())
+                    .collect(Collectors.toSet());
+            throw new BatchProcessingException(firstFailure.getKey(), firstFailure.getValue(), completedAfter);
+        }
+    }
+
+    /**
+     * A failure reaches the dispatcher wrapped when the task waited on a future, so its cause is reported instead.
+     */
+    private static Throwable unwrap(final Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package uk.gov.companieshouse.monitornotification.matcher.processor;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
 import monitor.filing;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
@@ -11,12 +17,15 @@ import uk.gov.companieshouse.api.company.CompanyDetails;
 import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.monitornotification.matcher.config.properties.ExternalLinksProperties;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
 import uk.gov.companieshouse.monitornotification.matcher.filing.FilingHistoryDescriptionConverter;
 import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
 import uk.gov.companieshouse.monitornotification.matcher.model.FilingHistory;
 import uk.gov.companieshouse.monitornotification.matcher.service.CompanyService;
 import uk.gov.companieshouse.monitornotification.matcher.service.EmailService;
 import uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchDataExtractor;
+import uk.gov.companieshouse.monitornotification.matcher.utils.ParsedNotificationMatch;
 
 @Component
 public class MessageProcessor {
@@ -29,22 +38,53 @@ public class MessageProcessor {
     private final ExternalLinksProperties properties;
     private final FilingHistoryDescriptionConverter converter;
     private final NotificationMatchDataExtractor extractor;
+    private final KeyOrderedDispatcher dispatcher;
 
     public MessageProcessor(final EmailService emailService, final CompanyService companyService, final Logger logger,
             final ExternalLinksProperties properties,
             final FilingHistoryDescriptionConverter converter,
-            final NotificationMatchDataExtractor extractor) {
+            final NotificationMatchDataExtractor extractor,
+            final KeyOrderedDispatcher dispatcher) {
         this.emailService = emailService;
         this.companyService = companyService;
         this.logger = logger;
         this.properties = properties;
         this.converter = converter;
         this.extractor = extractor;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Process every message from a single poll, either in order or in parallel by company number.
+     *
+     * @param messages the messages to process, in offset order.
+     * @param requestIds the request ID of each message, used to identify its log entries and the message sent on.
+     * @throws BatchProcessingException identifying the first message that failed.
+     */
+    public void processMessages(final List<filing> messages, final List<String> requestIds) {
+        logger.trace("processMessages(messages=%d) method called.".formatted(messages.size()));
+
+        // The views are shared between the ordering key and the processing, so each payload is parsed once.
+        List<BatchItem> items = IntStream.range(0, messages.size())
+                .mapToObj(index -> new BatchItem(extractor.parse(messages.get(index)), requestIds.get(index)))
+                .toList();
+
+        dispatcher.dispatch(items, item -> getOrderingKey(item.match()), item -> {
+            // Each message is sent on with its own message ID, taken from the request ID.
+            DataMapHolder.initialise(item.requestId());
+
+            processMessage(item.match());
+        });
     }
 
     public void processMessage(final filing message) {
         logger.trace("processMessage(message=%s) method called. ".formatted(message));
 
+        // The payload is parsed once and shared by every extraction step below.
+        processMessage(extractor.parse(message));
+    }
+
+    private void processMessage(final ParsedNotificationMatch message) {
         // Extract the Company ID from the message supplied.
         Optional<String> companyNumber = extractor.getCompanyNumber(message);
         if (companyNumber.isEmpty() || companyNumber.get().isBlank()) {
@@ -52,13 +92,41 @@ public class MessageProcessor {
             return;
         }
 
-        // Lookup the Company Details using the Company ID extracted.
-        Optional<CompanyDetails> companyDetails = companyService.findCompanyDetails(companyNumber.get());
+        // Start the Company Details lookup, and prepare the filing history while it is in flight.
+        var companyLookup = companyService.findCompanyDetailsAsync(companyNumber.get());
+
+        FilingHistory filingHistory = null;
+        RuntimeException extractionFailure = null;
+        try {
+            filingHistory = prepareFilingHistory(message);
+
+        } catch (RuntimeException ex) {
+            // A message for an unknown company is skipped whatever its filing data, so this is only raised below.
+            extractionFailure = ex;
+        }
+
+        Optional<CompanyDetails> companyDetails = awaitCompanyDetails(companyNumber.get(), companyLookup);
         if (companyDetails.isEmpty()) {
             logger.info("No company details were found with company number: [%s]. Processing aborted!".formatted(companyNumber.get()));
             return;
         }
+        if (extractionFailure != null) {
+            throw extractionFailure;
+        }
+
+        // Prepare the email document using the payload and company details.
+        var messageSend = createMessageSend(message, companyDetails.get(), filingHistory);
+
+        // Save the email request (document) to the repository.
+        emailService.saveMatch(messageSend);
+
+        // Send the email document to the email service for processing.
+        ApiResponse<Void> apiResponse = emailService.sendEmail(messageSend);
+        logger.info("Message sent to CHS Kafka API successfully: (Status Code: %d)".formatted(apiResponse.getStatusCode()));
+
+    }
 
+    private FilingHistory prepareFilingHistory(final ParsedNotificationMatch message) {
         // Extract the filing history details from the message supplied.
         var filingHistory = extractor.getFilingHistory(message);
         logger.debug("Filing history created: %s".formatted(filingHistory));
@@ -68,17 +136,39 @@ public class MessageProcessor {
         var descriptionKey = filingHistory.getDescription();
 
         filingHistory.setDescription(convertFilingDescription(descriptionKey, descriptionValues));
+        return filingHistory;
+    }
 
-        // Prepare the email document using the payload and company details.
-        var messageSend = createMessageSend(message, companyDetails.get(), filingHistory);
-
-        // Save the email request (document) to the repository.
-        emailService.saveMatch(messageSend);
+    private Optional<CompanyDetails> awaitCompanyDetails(final String companyNumber,
+            final CompletableFuture<Optional<CompanyDetails>> companyLookup) {
+        try {
+            return companyLookup.join();
+
+        } catch (CompletionException ex) {
+            // A slow or rejected lookup is worth retrying; any other failure is rethrown as raised by the company service.
+            if (ex.getCause() instanceof TimeoutException timeout) {
+                logger.error("Timed out looking up company details for company number: %s".formatted(companyNumber));
+                throw new RetryableException("Timed out looking up company details for: %s".formatted(companyNumber), timeout);
+            }
+            if (ex.getCause() instanceof RejectedExecutionException rejected) {
+                logger.error("Unable to start looking up company details for company number: %s".formatted(companyNumber));
+                throw new RetryableException("Unable to start looking up company details for: %s".formatted(companyNumber), rejected);
+            }
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
 
-        // Send the email document to the email service for processing.
-        ApiResponse<Void> apiResponse = emailService.sendEmail(messageSend);
-        logger.info("Message sent to CHS Kafka API successfully: (Status Code: %d)".formatted(apiResponse.getStatusCode()));
+    private String getOrderingKey(final ParsedNotificationMatch message) {
+        try {
+            return extractor.getCompanyNumber(message).orElse("");
 
+        } catch (RuntimeException ex) {
+            // The message will fail again when processed, so it shares the lane for messages without a company.
+            return "";
+        }
     }
 
     private String convertFilingDescription(final String descriptionKey, final Map<String, String> descriptionValues) {
@@ -96,9 +186,12 @@ public class MessageProcessor {
 
     }
 
-    private MessageSend createMessageSend(final filing payload, final CompanyDetails details, final FilingHistory history) {
+    private MessageSend createMessageSend(final ParsedNotificationMatch match, final CompanyDetails details,
+            final FilingHistory history) {
         logger.trace("createMessageSend(payload=%s, details=%s, history=%s) method called."
-                .formatted(payload, details, history));
+                .formatted(match, details, history));
+
+        var payload = match.getMessage();
 
         var message = new MessageSend();
         message.setAppId("monitor-notification-matcher.filing");
@@ -111,7 +204,7 @@ public class MessageProcessor {
         data.setFilingDate(history.getDate());
         data.setFilingDescription(history.getDescription());
         data.setFilingType(history.getType());
-        data.setIsDelete(extractor.isDelete(payload));
+        data.setIsDelete(extractor.isDelete(match));
         data.setChsURL(properties.getChsUrl());
         data.setMonitorURL(properties.getMonitorUrl());
         data.setFrom("Companies House <noreply@companieshouse.gov.uk>");
@@ -123,4 +216,7 @@ public class MessageProcessor {
 
         return message;
     }
-}
\ No newline at end of file
+
+    private record BatchItem(ParsedNotificationMatch match, String requestId) {
+    }
+}
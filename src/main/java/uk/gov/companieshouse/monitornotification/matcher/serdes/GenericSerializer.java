@@ -4,13 +4,22 @@ import static java.lang.String.format;
 import static uk.gov.companieshouse.monitornotification.matcher.config.ApplicationConfig.NAMESPACE;
 
 import consumer.exception.NonRetryableErrorException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import monitor.filing;
+import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.kafka.common.serialization.Serializer;
-import uk.gov.companieshouse.kafka.serialization.AvroSerializer;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
@@ -19,6 +28,35 @@ public class GenericSerializer implements Serializer<Object> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
 
+    static final String SERIALIZED_BYTES_METRIC = "notification.match.serializer.bytes";
+    static final String SERIALIZE_TIME_METRIC = "notification.match.serializer.time";
+
+    /**
+     * Buffers that have grown beyond this size (after an unusually large record) are dropped rather than kept.
+     */
+    static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The writer resolves the {@link filing} schema once, and the encoder and output buffer are reset and
+     * reused for every record serialized on the producing thread.
+     */
+    private static final ThreadLocal<EncoderState> ENCODER_STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private final MeterRegistry registry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor used when Kafka creates the serializer from its class name, recording metrics in the
+     * global registry (which Spring Boot's registry is added to).
+     */
+    public GenericSerializer() {
+        this(Metrics.globalRegistry);
+    }
+
+    public GenericSerializer(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
     @Override
     public byte[] serialize(final String topic, final Object payload) {
         LOGGER.trace(format("serialize() -> [Topic: %s, Payload: %s]", topic, payload.getClass().getSimpleName()));
@@ -29,11 +67,15 @@ public class GenericSerializer implements Serializer<Object> {
             }
 
             if (payload instanceof filing notificationMatch) {
-                DatumWriter<filing> writer = new SpecificDatumWriter<>();
-                var encoderFactory = EncoderFactory.get();
+                Meters topicMeters = meters.computeIfAbsent(topic, this::createMeters);
+
+                long start = System.nanoTime();
+                byte[] result = toBinary(notificationMatch);
 
-                AvroSerializer<filing> avroSerializer = new AvroSerializer<>(writer, encoderFactory);
-                return avroSerializer.toBinary(notificationMatch);
+                topicMeters.time.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                topicMeters.bytes.record(result.length);
+
+                return result;
             }
 
             return payload.toString().getBytes(StandardCharsets.UTF_8);
@@ -43,5 +85,50 @@ public class GenericSerializer implements Serializer<Object> {
             throw new NonRetryableErrorException("Serialization exception while writing to byte array", ex);
         }
     }
-}
 
+    private byte[] toBinary(final filing notificationMatch) throws IOException {
+        EncoderState state = ENCODER_STATE.get();
+        state.output.reset();
+        state.encoder = EncoderFactory.get().binaryEncoder(state.output, state.encoder);
+
+        try {
+            state.writer.write(notificationMatch, state.encoder);
+            state.encoder.flush();
+
+            return state.output.toByteArray();
+
+        } catch (IOException | RuntimeException ex) {
+            // A failed write can leave unflushed bytes in the encoder, which would be flushed into the next record.
+            ENCODER_STATE.remove();
+            throw ex;
+
+        } finally {
+            if (state.output.size() > MAX_RETAINED_BUFFER_SIZE) {
+                ENCODER_STATE.remove();
+            }
+        }
+    }
+
+    private Meters createMeters(final String topic) {
+        return new Meters(
+                DistributionSummary.builder(SERIALIZED_BYTES_METRIC)
+                        .description("Size of the records serialized for the retry and error topics")
+                        .baseUnit("bytes")
+                        .tag("topic", topic)
+                        .register(registry),
+                Timer.builder(SERIALIZE_TIME_METRIC)
+                        .description("Time taken to serialize the records for the retry and error topics")
+                        .tag("topic", topic)
+                        .register(registry));
+    }
+
+    private record Meters(DistributionSummary bytes, Timer time) {
+    }
+
+    private static final class EncoderState {
+
+        private final DatumWriter<filing> writer = new SpecificDatumWriter<>(filing.getClassSchema());
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream(1024);
+        private BinaryEncoder encoder;
+    }
+}
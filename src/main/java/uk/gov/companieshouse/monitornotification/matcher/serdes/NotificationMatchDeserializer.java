@@ -4,12 +4,18 @@ import static uk.gov.companieshouse.monitornotification.matcher.config.Applicati
 
 import consumer.exception.NonRetryableErrorException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
 import monitor.filing;
 import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.DatumReader;
-import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.reflect.ReflectDatumReader;
+import org.apache.avro.util.ByteBufferInputStream;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Deserializer;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
@@ -19,14 +25,95 @@ public class NotificationMatchDeserializer implements Deserializer<filing> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
 
+    /**
+     * The only fields of the {@link filing} record used by the matcher. Schema resolution skips over every
+     * other field of the writer schema without decoding it, so those fields are left unset on the record.
+     */
+    static final Set<String> PROJECTED_FIELDS = Set.of("data", "user_id", "notified_at", "kind");
+
+    static final Schema WRITER_SCHEMA = filing.getClassSchema();
+    static final Schema PROJECTION_SCHEMA = buildProjectionSchema(WRITER_SCHEMA);
+
+    /**
+     * Holds the original bytes of each decoded record, as the projected record cannot be serialized back to
+     * them. {@link uk.gov.companieshouse.monitornotification.matcher.exception.RetryableTopicErrorInterceptor}
+     * forwards these bytes to the retry and error topics in place of the record, and removes the header.
+     */
+    public static final String ORIGINAL_VALUE_HEADER = "notification-match-original-value";
+
+    /**
+     * Building a reflect reader resolves the schema and field accessors, so each consumer thread builds
+     * one and keeps it, along with a decoder that is re-pointed at every record instead of re-allocated.
+     */
+    private static final ThreadLocal<DecoderState> DECODER_STATE = ThreadLocal.withInitial(DecoderState::new);
+
     @Override
     public filing deserialize(String topic, byte[] data) {
         LOGGER.trace("deserialize() -> [Topic: %s, Data: %d bytes]".formatted(topic, data.length));
 
+        return decode(prepare(data));
+    }
+
+    /**
+     * Decode a record with this thread's reader and decoder, as {@link #deserialize(String, byte[])} does but
+     * without its logging or error handling, so that the benchmark measures the decode alone.
+     */
+    static filing read(byte[] data) throws IOException {
+        DecoderState state = prepare(data);
+        return state.reader.read(null, state.decoder);
+    }
+
+    private static DecoderState prepare(byte[] data) {
+        DecoderState state = DECODER_STATE.get();
+        state.decoder = DecoderFactory.get().binaryDecoder(data, state.decoder);
+        return state;
+    }
+
+    @Override
+    public filing deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        filing record = deserialize(topic, data);
+        headers.add(ORIGINAL_VALUE_HEADER, data);
+        return record;
+    }
+
+    /**
+     * The consumer hands over each record as a view of its fetch buffer, so the record is decoded in place
+     * rather than from a copy. The bytes are then copied once, to be kept for forwarding.
+     */
+    @Override
+    public filing deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+        LOGGER.trace("deserialize() -> [Topic: %s, Data: %d bytes]".formatted(topic, data.remaining()));
+
+        DecoderState state = DECODER_STATE.get();
+        if (data.hasArray()) {
+            state.decoder = DecoderFactory.get().binaryDecoder(data.array(), data.arrayOffset() + data.position(),
+                    data.remaining(), state.decoder);
+        } else {
+            // A direct buffer has no backing array; it is streamed from a duplicate so the caller's position is untouched.
+            state.decoder = DecoderFactory.get().binaryDecoder(new ByteBufferInputStream(List.of(data.duplicate())),
+                    state.decoder);
+        }
+
+        filing record = decode(state);
+
+        // The fetch buffer is reused once the poll returns, so the original bytes are copied out of it.
+        byte[] original = new byte[data.remaining()];
+        data.duplicate().get(original);
+        headers.add(ORIGINAL_VALUE_HEADER, original);
+
+        return record;
+    }
+
+    private filing decode(DecoderState state) {
         try {
-            Decoder decoder = DecoderFactory.get().binaryDecoder(data, null);
-            DatumReader<filing> reader = new ReflectDatumReader<>(filing.class);
-            filing record = reader.read(null, decoder);
+            // A new record is returned every time, as the payload is handed on to the listener.
+            filing record = state.reader.read(null, state.decoder);
 
             LOGGER.info("Message successfully de-serialised", DataMapHolder.getLogMap());
 
@@ -37,5 +124,31 @@ public class NotificationMatchDeserializer implements Deserializer<filing> {
             throw new NonRetryableErrorException("De-Serialization exception while converting to Avro schema object", ex);
         }
     }
-}
 
+    /**
+     * Build a reader schema holding only the projected fields, under the same full name as the writer schema
+     * so that records still resolve to the {@link filing} class.
+     *
+     * @throws IllegalStateException if a projected field is no longer in the writer schema.
+     */
+    static Schema buildProjectionSchema(Schema writerSchema) {
+        List<Schema.Field> fields = writerSchema.getFields().stream()
+                .filter(field -> PROJECTED_FIELDS.contains(field.name()))
+                .map(field -> new Schema.Field(field, field.schema()))
+                .toList();
+
+        if (fields.size() != PROJECTED_FIELDS.size()) {
+            throw new IllegalStateException("The writer schema %s is missing projected fields, found: %s, expected: %s"
+                    .formatted(writerSchema.getFullName(), fields.stream().map(Schema.Field::name).toList(), PROJECTED_FIELDS));
+        }
+
+        return Schema.createRecord(writerSchema.getName(), writerSchema.getDoc(), writerSchema.getNamespace(),
+                writerSchema.isError(), fields);
+    }
+
+    private static final class DecoderState {
+
+        private final DatumReader<filing> reader = new ReflectDatumReader<>(WRITER_SCHEMA, PROJECTION_SCHEMA);
+        private BinaryDecoder decoder;
+    }
+}
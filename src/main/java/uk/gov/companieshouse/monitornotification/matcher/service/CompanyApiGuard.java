@@ -0,0 +1,90 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
+
+/**
+ * Protects the listener threads from a slow or failing Company Profile API.<br>
+ * <br>
+ * A circuit breaker opens once the failure rate or the rate of slow calls crosses its threshold, and a
+ * bulkhead limits the number of calls in flight. While the breaker is open, or when no call slot is free
+ * within the maximum wait, the lookup fails straight away with a {@link RetryableException}, so the record
+ * moves to the retry topic rather than holding a listener thread. Calls turned away by the bulkhead do not
+ * count against the breaker.<br>
+ * <br>
+ * The breaker state, call outcomes and bulkhead usage are published as the {@code resilience4j.circuitbreaker.*}
+ * and {@code resilience4j.bulkhead.*} metrics, named {@code company-profile-api}.
+ */
+@Component
+public class CompanyApiGuard {
+
+    static final String NAME = "company-profile-api";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Logger logger;
+
+    public CompanyApiGuard(final CompanyLookupProperties properties, final MeterRegistry registry, final Logger logger) {
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(properties.getSlowCallDuration()))
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(Duration.ofMillis(properties.getWaitInOpenState()))
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ofMillis(properties.getMaxWaitDuration()))
+                .build());
+
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        this.logger = logger;
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(registry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(registry);
+
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                logger.info("Company Profile API circuit breaker: %s".formatted(event.getStateTransition())));
+    }
+
+    /**
+     * Run a call to the Company Profile API through the circuit breaker and bulkhead.
+     *
+     * @throws RetryableException if the breaker is open or the bulkhead is full.
+     */
+    public <T> T execute(final Supplier<T> call) {
+        try {
+            return circuitBreaker.executeSupplier(Bulkhead.decorateSupplier(bulkhead, call));
+
+        } catch (CallNotPermittedException ex) {
+            logger.error("Company Profile API circuit breaker is open, lookup rejected.");
+            throw new RetryableException("Company Profile API circuit breaker is open", ex);
+
+        } catch (BulkheadFullException ex) {
+            logger.error("Company Profile API bulkhead is full, lookup rejected.");
+            throw new RetryableException("Company Profile API bulkhead is full", ex);
+        }
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+}
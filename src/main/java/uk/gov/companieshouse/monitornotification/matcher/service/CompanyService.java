@@ -1,10 +1,21 @@
 package uk.gov.companieshouse.monitornotification.matcher.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.api.InternalApiClient;
 import uk.gov.companieshouse.api.company.CompanyDetails;
@@ -12,22 +23,186 @@ import uk.gov.companieshouse.api.error.ApiErrorResponseException;
 import uk.gov.companieshouse.api.handler.exception.URIValidationException;
 import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.cache.CompanyDetailsCache;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
 import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
 import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+import uk.gov.companieshouse.monitornotification.matcher.store.CompanyDetailsStore;
 
 @Service
 public class CompanyService {
 
+    static final String COALESCED_LOOKUPS_METRIC = "notification.match.company.lookups.coalesced";
+    static final String BATCH_SIZE_METRIC = "notification.match.company.lookups.batch.size";
+    static final String BATCHED_LOOKUPS_METRIC = "notification.match.company.lookups.batched";
+    static final String REFRESHES_METRIC = "notification.match.company.cache.refreshes";
+    static final String STALE_SERVES_METRIC = "notification.match.company.cache.stale.serves";
+
     private final Supplier<InternalApiClient> supplier;
+    private final CompanyDetailsStore store;
+    private final CompanyDetailsCache cache;
+    private final SingleFlight<String, Optional<CompanyDetails>> lookups;
+    private final CompanyApiGuard guard;
+    private final HedgingPolicy hedging;
+    private final ExecutorService executor;
+    private final LookupAggregator<String, Optional<CompanyDetails>> aggregator;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter staleServes;
+    private final Counter refreshesSucceeded;
+    private final Counter refreshesFailed;
     private final Logger logger;
 
-    public CompanyService(@Qualifier("internalPrivateApiClientSupplier") final Supplier<InternalApiClient> supplier, final Logger logger) {
+    public CompanyService(@Qualifier("internalPrivateApiClientSupplier") final Supplier<InternalApiClient> supplier,
+            final CompanyDetailsStore store, final CompanyDetailsCache cache, final CompanyApiGuard guard,
+            final CompanyLookupProperties properties, final MeterRegistry registry, final Logger logger) {
         this.supplier = supplier;
+        this.store = store;
+        this.cache = cache;
+        this.lookups = new SingleFlight<>(Counter.builder(COALESCED_LOOKUPS_METRIC)
+                .description("Company lookups that shared a request already in flight for the same company")
+                .register(registry));
+        this.guard = guard;
+        this.hedging = new HedgingPolicy(properties, registry);
+        this.executor = buildExecutor(properties);
+        this.aggregator = new LookupAggregator<>(properties.isBatchEnabled(), properties.getBatchWindow(),
+                properties.getBatchMaxSize(), properties.getBatchMaxInFlight(), properties.getQueueTimeout(), executor,
+                DistributionSummary.builder(BATCH_SIZE_METRIC)
+                        .description("Distinct companies looked up in each batch of concurrent lookups")
+                        .register(registry),
+                Counter.builder(BATCHED_LOOKUPS_METRIC)
+                        .description("Company lookups that joined one already waiting in the open batch")
+                        .register(registry));
+        this.staleServes = Counter.builder(STALE_SERVES_METRIC)
+                .description("Cached company details served while due for a background refresh")
+                .register(registry);
+        this.refreshesSucceeded = refreshCounter(registry, "success");
+        this.refreshesFailed = refreshCounter(registry, "failure");
         this.logger = logger;
     }
 
+    private static Counter refreshCounter(final MeterRegistry registry, final String result) {
+        return Counter.builder(REFRESHES_METRIC)
+                .description("Background refreshes of cached company details, by result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static ExecutorService buildExecutor(final CompanyLookupProperties properties) {
+        if (properties.isVirtualThreads()) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("company-lookup-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(Math.max(properties.getThreads(), 1),
+                new CustomizableThreadFactory("company-lookup-"));
+    }
+
+    /**
+     * Look up the company details without blocking the caller, so that other work on the message can run while
+     * the request is in flight. A cached result completes straight away, without a hand-off. When batching is
+     * enabled, lookups from concurrent messages are gathered briefly so each distinct company is looked up once.
+     *
+     * @param companyNumber the company number.
+     * @return the company details, or a future completed exceptionally with a {@link java.util.concurrent.TimeoutException}
+     *         if the lookup does not start within the queue timeout of this call, or does not complete within the
+     *         timeout once it starts running (which adapts to recent latencies when hedging is enabled).
+     *         A lookup that no thread can be found for fails with a {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Optional<CompanyDetails>> findCompanyDetailsAsync(final String companyNumber) {
+        logger.trace("findCompanyDetailsAsync(companyNumber=%s) method called.".formatted(companyNumber));
+
+        Optional<CompanyDetails> storedDetails = store.find(companyNumber);
+        if (storedDetails.isPresent()) {
+            return CompletableFuture.completedFuture(storedDetails);
+        }
+
+        Optional<CompanyDetails> cachedDetails = cache.get(companyNumber);
+        if (cachedDetails.isPresent()) {
+            refreshIfDue(companyNumber);
+            return CompletableFuture.completedFuture(cachedDetails);
+        }
+        if (cache.isNotFound(companyNumber)) {
+            return CompletableFuture.completedFuture(cachedDetails);
+        }
+
+        // The result may be shared with other callers, so each caller times out on its own copy. The queue timeout
+        // bounds the wait to start from now, and the lookup timeout only starts once the lookup runs, so a lookup
+        // briefly queued behind a burst is not failed before it is even sent.
+        return aggregator.submit(companyNumber, DataMapHolder.propagate(() -> findCompanyDetails(companyNumber)),
+                hedging.timeout());
+    }
+
     public Optional<CompanyDetails> findCompanyDetails(final String companyNumber) {
         logger.trace("findCompanyDetails(companyNumber=%s) method called.".formatted(companyNumber));
+
+        Optional<CompanyDetails> storedDetails = store.find(companyNumber);
+        if (storedDetails.isPresent()) {
+            logger.debug("Company details for '%s' found in local store.".formatted(companyNumber));
+            return storedDetails;
+        }
+
+        Optional<CompanyDetails> cachedDetails = cache.get(companyNumber);
+        if (cachedDetails.isPresent()) {
+            logger.debug("Company details for '%s' found in cache.".formatted(companyNumber));
+            refreshIfDue(companyNumber);
+            return cachedDetails;
+        }
+        if (cache.isNotFound(companyNumber)) {
+            logger.debug("Company '%s' recently not found, skipping lookup.".formatted(companyNumber));
+            return Optional.empty();
+        }
+
+        return load(companyNumber);
+    }
+
+    private Optional<CompanyDetails> load(final String companyNumber) {
+        // Concurrent lookups for the same company share a single request to the API, which may be hedged if slow.
+        return lookups.execute(companyNumber, () -> {
+            Optional<CompanyDetails> companyDetails = hedging.execute(
+                    () -> guard.execute(() -> fetchCompanyDetails(companyNumber)));
+            companyDetails.ifPresentOrElse(details -> cache.put(companyNumber, details), () -> {
+                // A background refresh may find that a cached company has gone, so its details are dropped too.
+                cache.invalidate(companyNumber);
+                cache.putNotFound(companyNumber);
+            });
+            return companyDetails;
+        });
+    }
+
+    /**
+     * Reload an entry that is close to expiry in the background, while the current details go on being served,
+     * so that a busy company does not expire and leave every message in flight to miss at once. Only one
+     * refresh of a company runs at a time.
+     */
+    private void refreshIfDue(final String companyNumber) {
+        if (!cache.isDueForRefresh(companyNumber)) {
+            return;
+        }
+        staleServes.increment();
+        if (!refreshing.add(companyNumber)) {
+            return;
+        }
+
+        try {
+            executor.execute(DataMapHolder.propagate(() -> {
+                try {
+                    load(companyNumber);
+                    refreshesSucceeded.increment();
+
+                } catch (RuntimeException ex) {
+                    refreshesFailed.increment();
+                    logger.info("Background refresh of company details for '%s' failed: %s"
+                            .formatted(companyNumber, ex.getMessage()));
+
+                } finally {
+                    refreshing.remove(companyNumber);
+                }
+            }));
+
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(companyNumber);
+        }
+    }
+
+    private Optional<CompanyDetails> fetchCompanyDetails(final String companyNumber) {
         try {
             var requestId = Optional.ofNullable(DataMapHolder.getRequestId()).orElse(UUID.randomUUID().toString());
 
@@ -59,4 +234,11 @@ public class CompanyService {
             throw new NonRetryableException(exceptionMessage, ex);
         }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        aggregator.shutdown();
+        executor.shutdown();
+        hedging.shutdown();
+    }
 }
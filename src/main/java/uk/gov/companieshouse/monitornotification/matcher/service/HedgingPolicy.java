@@ -0,0 +1,226 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
+import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+
+/**
+ * Cuts the tail latency of company lookups by hedging: once a request has gone unanswered for longer than
+ * the configured percentile of recent latencies, a second request is sent and whichever succeeds first is
+ * used. The other is left to finish in the background and its result discarded.<br>
+ * <br>
+ * Hedges are paid for from a budget, which each lookup tops up by a fraction of a request, so that hedging
+ * adds at most that fraction to the load on the API, even when it is slow across the board. The lookup
+ * timeout adapts in the same way, following a multiple of a high percentile of recent latencies, within the
+ * configured bounds. Until enough latencies have been seen, no hedges are sent and the configured timeout
+ * is used.
+ */
+class HedgingPolicy {
+
+    static final String HEDGES_METRIC = "notification.match.company.lookups.hedges";
+    static final String HEDGE_DELAY_METRIC = "notification.match.company.lookups.hedge.delay";
+    static final String TIMEOUT_METRIC = "notification.match.company.lookups.timeout";
+
+    static final long MINIMUM_SAMPLES = 50L;
+    static final double MAXIMUM_CREDIT = 10.0;
+
+    private final boolean enabled;
+    private final long timeout;
+    private final long minimumTimeout;
+    private final double timeoutPercentile;
+    private final double timeoutMultiplier;
+    private final double hedgePercentile;
+    private final long hedgeMinimumDelay;
+    private final double hedgeBudget;
+    private final RollingLatencyHistogram latencies;
+    private final ExecutorService executor;
+
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesRejected;
+
+    private double credit;
+
+    HedgingPolicy(final CompanyLookupProperties properties, final MeterRegistry registry) {
+        this(properties, registry, new RollingLatencyHistogram(properties.getLatencyWindow(), System::currentTimeMillis));
+    }
+
+    HedgingPolicy(final CompanyLookupProperties properties, final MeterRegistry registry,
+            final RollingLatencyHistogram latencies) {
+        this.enabled = properties.isHedgeEnabled();
+        this.timeout = properties.getTimeout();
+        this.minimumTimeout = Math.min(properties.getMinimumTimeout(), properties.getTimeout());
+        this.timeoutPercentile = properties.getTimeoutPercentile();
+        this.timeoutMultiplier = properties.getTimeoutMultiplier();
+        this.hedgePercentile = properties.getHedgePercentile();
+        this.hedgeMinimumDelay = properties.getHedgeMinimumDelay();
+        this.hedgeBudget = properties.getHedgeBudget();
+        this.latencies = latencies;
+        this.executor = enabled
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("company-lookup-hedge-", 0).factory())
+                : null;
+
+        this.hedgesSent = hedgeCounter(registry, "sent");
+        this.hedgesWon = hedgeCounter(registry, "won");
+        this.hedgesRejected = hedgeCounter(registry, "rejected");
+
+        Gauge.builder(HEDGE_DELAY_METRIC, this, HedgingPolicy::hedgeDelay)
+                .description("The delay after which an unanswered company lookup is hedged, in milliseconds")
+                .register(registry);
+        Gauge.builder(TIMEOUT_METRIC, this, HedgingPolicy::timeout)
+                .description("The current company lookup timeout, in milliseconds")
+                .register(registry);
+    }
+
+    private static Counter hedgeCounter(final MeterRegistry registry, final String result) {
+        return Counter.builder(HEDGES_METRIC)
+                .description("Hedged company lookups, by whether the hedge was sent, won or turned away by the budget")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * @return the lookup timeout, in milliseconds.
+     */
+    long timeout() {
+        if (!enabled || latencies.count() < MINIMUM_SAMPLES) {
+            return timeout;
+        }
+        long adaptiveTimeout = (long) Math.ceil(latencies.percentile(timeoutPercentile) * timeoutMultiplier);
+        return Math.clamp(adaptiveTimeout, minimumTimeout, timeout);
+    }
+
+    /**
+     * @return the delay after which a request is hedged, in milliseconds, or the timeout if no hedge is sent.
+     */
+    long hedgeDelay() {
+        if (!enabled || latencies.count() < MINIMUM_SAMPLES) {
+            return timeout;
+        }
+        long currentTimeout = timeout();
+        return Math.clamp(latencies.percentile(hedgePercentile), Math.min(hedgeMinimumDelay, currentTimeout), currentTimeout);
+    }
+
+    /**
+     * Run the request, hedging it if it is slow to answer and the budget allows.
+     *
+     * @param request the request, which may be run twice at once.
+     * @return the result of the first request to succeed.
+     */
+    <T> T execute(final Supplier<T> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        addCredit();
+
+        if (latencies.count() < MINIMUM_SAMPLES) {
+            return timed(request).get();
+        }
+
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(timed(request), executor);
+        try {
+            return primary.get(hedgeDelay(), TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException ex) {
+            if (!tryAcquireCredit()) {
+                hedgesRejected.increment();
+                return join(primary);
+            }
+            hedgesSent.increment();
+
+            CompletableFuture<T> hedge = CompletableFuture.supplyAsync(timed(request), executor);
+            hedge.thenRun(() -> {
+                if (!primary.isDone() || primary.isCompletedExceptionally()) {
+                    hedgesWon.increment();
+                }
+            });
+            return join(firstSuccessful(primary, hedge));
+
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new CompletionException(ex);
+        }
+    }
+
+    private <T> Supplier<T> timed(final Supplier<T> request) {
+        return DataMapHolder.propagate(() -> {
+            long start = System.nanoTime();
+            T result = request.get();
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        });
+    }
+
+    /**
+     * Completes with the first of the two to succeed, or with the last failure if both fail.
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first,
+            final CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        for (CompletableFuture<T> future : List.of(first, second)) {
+            future.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    result.complete(value);
+                } else if (remaining.decrementAndGet() == 0) {
+                    result.completeExceptionally(failure);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+
+        } catch (CompletionException ex) {
+            throw rethrow(ex.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(final Throwable cause) {
+        Throwable unwrapped = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (unwrapped instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (unwrapped instanceof Error error) {
+            throw error;
+        }
+        return new CompletionException(unwrapped);
+    }
+
+    private synchronized void addCredit() {
+        credit = Math.min(credit + hedgeBudget, MAXIMUM_CREDIT);
+    }
+
+    private synchronized boolean tryAcquireCredit() {
+        if (credit < 1.0) {
+            return false;
+        }
+        credit -= 1.0;
+        return true;
+    }
+
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Gathers lookups made by concurrent callers into short batches, so that a burst of messages for the same few
+ * keys turns into one call per distinct key.<br>
+ * <br>
+ * A batch is sent once the window has passed since its first lookup, or as soon as it holds the maximum number
+ * of distinct keys, whichever comes first. A lookup for a key already in the open batch shares its result. The
+ * calls in a batch run in parallel on the executor, at most the given number at a time, and each result is
+ * handed to every caller waiting on that key.<br>
+ * <br>
+ * When disabled, each lookup is handed straight to the executor. A lookup that the executor cannot take fails
+ * with the {@link RejectedExecutionException}, rather than raising it to the caller.
+ *
+ * @param <K> the key type.
+ * @param <V> the result type.
+ */
+class LookupAggregator<K, V> {
+
+    private final boolean enabled;
+    private final long window;
+    private final int maxBatchSize;
+    private final long queueTimeout;
+    private final Semaphore permits;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final DistributionSummary batchSizes;
+    private final Counter joinedLookups;
+
+    private final Object lock = new Object();
+    private Map<K, Pending<V>> batch = new LinkedHashMap<>();
+    private ScheduledFuture<?> timer;
+
+    /**
+     * @param queueTimeout the time in milliseconds a lookup submitted with a timeout may wait to start running (in
+     *        the batch, and for a thread and permit), counted from submission. Not limited when zero or less.
+     */
+    LookupAggregator(final boolean enabled, final long window, final int maxBatchSize, final int maxInFlight,
+            final long queueTimeout, final Executor executor, final DistributionSummary batchSizes,
+            final Counter joinedLookups) {
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.queueTimeout = queueTimeout;
+        this.permits = new Semaphore(Math.max(maxInFlight, 1));
+        this.executor = executor;
+        this.scheduler = enabled
+                ? Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("company-lookup-batch-"))
+                : null;
+        this.batchSizes = batchSizes;
+        this.joinedLookups = joinedLookups;
+    }
+
+    /**
+     * @param key the key to look up.
+     * @param call the lookup, which is only run if no lookup for the same key is already waiting in the batch.
+     * @return the result, which may be shared with other callers and so must not be completed by the caller.
+     */
+    CompletableFuture<V> submit(final K key, final Supplier<V> call) {
+        return enqueue(key, call).future();
+    }
+
+    /**
+     * @param key the key to look up.
+     * @param call the lookup, which is only run if no lookup for the same key is already waiting in the batch.
+     * @param timeout the time in milliseconds the lookup may run for, counted from when it starts running, so
+     *        that a lookup queued behind a burst is not failed for time spent waiting within the queue timeout.
+     * @return the caller's own copy of the result, completed exceptionally with a
+     *         {@link java.util.concurrent.TimeoutException} if the lookup waits longer than the queue timeout to
+     *         start, or runs for longer than the timeout once started.
+     */
+    CompletableFuture<V> submit(final K key, final Supplier<V> call, final long timeout) {
+        Pending<V> pending = enqueue(key, call);
+
+        CompletableFuture<V> result = pending.future().copy();
+        CompletableFuture<Void> started = pending.started().copy();
+        if (queueTimeout > 0) {
+            started.orTimeout(queueTimeout, TimeUnit.MILLISECONDS);
+        }
+        started.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.orTimeout(timeout, TimeUnit.MILLISECONDS);
+            }
+        });
+        return result;
+    }
+
+    private Pending<V> enqueue(final K key, final Supplier<V> call) {
+        if (!enabled) {
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            CompletableFuture<V> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> {
+                    started.complete(null);
+                    return call.get();
+                }, executor);
+            } catch (RejectedExecutionException ex) {
+                result = CompletableFuture.failedFuture(ex);
+            }
+            return new Pending<>(result, started, call);
+        }
+
+        Map<K, Pending<V>> full = null;
+        Pending<V> pending;
+        synchronized (lock) {
+            pending = batch.get(key);
+            if (pending != null) {
+                joinedLookups.increment();
+                return pending;
+            }
+
+            pending = new Pending<>(new CompletableFuture<>(), new CompletableFuture<>(), call);
+            batch.put(key, pending);
+            if (batch.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (batch.size() == 1) {
+                timer = scheduler.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return pending;
+    }
+
+    private void flush() {
+        Map<K, Pending<V>> due;
+        synchronized (lock) {
+            due = takeBatch();
+        }
+        dispatch(due);
+    }
+
+    private Map<K, Pending<V>> takeBatch() {
+        Map<K, Pending<V>> taken = batch;
+        batch = new LinkedHashMap<>();
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return taken;
+    }
+
+    private void dispatch(final Map<K, Pending<V>> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+        batchSizes.record(due.size());
+
+        for (Pending<V> pending : due.values()) {
+            try {
+                executor.execute(() -> run(pending));
+            } catch (RejectedExecutionException ex) {
+                pending.future().completeExceptionally(ex);
+            }
+        }
+    }
+
+    private void run(final Pending<V> pending) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.future().completeExceptionally(ex);
+            return;
+        }
+
+        try {
+            pending.started().complete(null);
+            pending.future().complete(pending.call().get());
+        } catch (RuntimeException | Error ex) {
+            pending.future().completeExceptionally(ex);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stop batching, sending on any lookups still waiting in the open batch.
+     */
+    void shutdown() {
+        if (scheduler != null) {
+            flush();
+            scheduler.shutdown();
+        }
+    }
+
+    private record Pending<V>(CompletableFuture<V> future, CompletableFuture<Void> started, Supplier<V> call) {
+    }
+}
@@ -0,0 +1,123 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A latency histogram over a rolling time window, from which percentiles can be read cheaply.<br>
+ * <br>
+ * Latencies are counted into buckets whose bounds grow by roughly 10%, so a percentile is accurate to within
+ * one bucket. The window is split into slices; each slice is cleared and reused once it falls out of the
+ * window, so old latencies age out without having to be stored individually.
+ */
+class RollingLatencyHistogram {
+
+    static final int SLICES = 6;
+    static final long MAX_LATENCY = 120_000L;
+
+    /** The inclusive upper bound, in milliseconds, of each bucket. */
+    static final long[] BOUNDS = buildBounds();
+
+    private final long sliceMillis;
+    private final LongSupplier clock;
+    private final Slice[] slices = new Slice[SLICES];
+
+    RollingLatencyHistogram(final long windowMillis, final LongSupplier clock) {
+        this.sliceMillis = Math.max(windowMillis / SLICES, 1L);
+        this.clock = clock;
+        for (int i = 0; i < SLICES; i++) {
+            slices[i] = new Slice();
+        }
+    }
+
+    private static long[] buildBounds() {
+        List<Long> bounds = new ArrayList<>();
+        long bound = 1L;
+        while (bound < MAX_LATENCY) {
+            bounds.add(bound);
+            bound = Math.max(bound + 1, (long) Math.ceil(bound * 1.1));
+        }
+        bounds.add(MAX_LATENCY);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    static int bucket(final long millis) {
+        int index = Arrays.binarySearch(BOUNDS, Math.max(millis, 0L));
+        return Math.min(index >= 0 ? index : -index - 1, BOUNDS.length - 1);
+    }
+
+    void record(final long millis) {
+        currentSlice().counts.incrementAndGet(bucket(millis));
+    }
+
+    /**
+     * @return the number of latencies recorded within the window.
+     */
+    long count() {
+        long count = 0L;
+        for (long bucketCount : liveCounts()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 1.
+     * @return the upper bound of the bucket holding the given percentile, or 0 if nothing was recorded within the window.
+     */
+    long percentile(final double percentile) {
+        long[] counts = liveCounts();
+        long total = Arrays.stream(counts).sum();
+        if (total == 0L) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long cumulative = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return BOUNDS[i];
+            }
+        }
+        return BOUNDS[BOUNDS.length - 1];
+    }
+
+    private long[] liveCounts() {
+        long epoch = clock.getAsLong() / sliceMillis;
+        long[] counts = new long[BOUNDS.length];
+        for (Slice slice : slices) {
+            if (slice.epoch > epoch - SLICES) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += slice.counts.get(i);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private Slice currentSlice() {
+        long epoch = clock.getAsLong() / sliceMillis;
+        Slice slice = slices[(int) (epoch % SLICES)];
+        if (slice.epoch != epoch) {
+            synchronized (slice) {
+                if (slice.epoch != epoch) {
+                    for (int i = 0; i < BOUNDS.length; i++) {
+                        slice.counts.set(i, 0L);
+                    }
+                    slice.epoch = epoch;
+                }
+            }
+        }
+        return slice;
+    }
+
+    private static final class Slice {
+
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS.length);
+        private volatile long epoch = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import io.micrometer.core.instrument.Counter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key, so that only the first caller runs the call and every caller
+ * arriving while it is in flight waits for, and shares, its result or exception. Once the call completes the
+ * key is released, so a later call runs afresh.
+ *
+ * @param <K> the key type.
+ * @param <V> the result type.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedCalls;
+
+    SingleFlight(final Counter coalescedCalls) {
+        this.coalescedCalls = coalescedCalls;
+    }
+
+    V execute(final K key, final Supplier<V> call) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalescedCalls.increment();
+            return await(existing);
+        }
+
+        try {
+            V result = call.get();
+            future.complete(result);
+            return result;
+
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static <V> V await(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+
+        } catch (CompletionException ex) {
+            // Rethrow the leader's own exception so every caller sees the same failure.
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
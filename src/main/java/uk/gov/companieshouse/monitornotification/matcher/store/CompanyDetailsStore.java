@@ -0,0 +1,12 @@
+package uk.gov.companieshouse.monitornotification.matcher.store;
+
+import java.util.Optional;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+
+/**
+ * A local copy of the company details, kept up to date independently of the lookups made against it.
+ */
+public interface CompanyDetailsStore {
+
+    Optional<CompanyDetails> find(String companyNumber);
+}
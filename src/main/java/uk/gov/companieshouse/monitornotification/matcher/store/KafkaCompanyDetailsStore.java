@@ -0,0 +1,199 @@
+package uk.gov.companieshouse.monitornotification.matcher.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyStoreProperties;
+
+/**
+ * Keeps the company details in memory, loaded from a compacted company profile topic.<br>
+ * <br>
+ * Each record is keyed by company number, with a JSON company profile as its value ({@code company_name} and
+ * {@code company_status} are read) and a tombstone when the company is removed. The whole topic is read from
+ * the beginning on start-up, without a consumer group, and followed from then on.<br>
+ * <br>
+ * The store reports {@code notification.match.company.store.size}, {@code .loaded} (1 once the start-up
+ * read has reached the end of the topic), {@code .staleness} (milliseconds since the newest record applied
+ * was written) and {@code .lookups} by result, from which the hit ratio shows how complete it is.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.company.store.enabled", havingValue = "true")
+public class KafkaCompanyDetailsStore implements CompanyDetailsStore, SmartLifecycle {
+
+    static final String METRIC_PREFIX = "notification.match.company.store";
+
+    private final ConcurrentMap<String, CompanyDetails> companies = new ConcurrentHashMap<>();
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final String topic;
+    private final Duration pollTimeout;
+    private final ObjectMapper mapper;
+    private final Clock clock;
+    private final Counter hits;
+    private final Counter misses;
+    private final Logger logger;
+
+    private volatile boolean running;
+    private volatile boolean loaded;
+    private volatile long latestRecordTimestamp = -1L;
+    private volatile Consumer<String, String> consumer;
+    private Thread loader;
+
+    @Autowired
+    public KafkaCompanyDetailsStore(final CompanyStoreProperties properties,
+            @Qualifier("companyStoreConsumerFactory") final ConsumerFactory<String, String> consumerFactory,
+            final ObjectMapper mapper, final MeterRegistry registry, final Logger logger) {
+        this(properties, consumerFactory, mapper, registry, Clock.systemUTC(), logger);
+    }
+
+    KafkaCompanyDetailsStore(final CompanyStoreProperties properties, final ConsumerFactory<String, String> consumerFactory,
+            final ObjectMapper mapper, final MeterRegistry registry, final Clock clock, final Logger logger) {
+        this.consumerFactory = consumerFactory;
+        this.topic = properties.getTopic();
+        this.pollTimeout = Duration.ofMillis(properties.getPollTimeout());
+        this.mapper = mapper;
+        this.clock = clock;
+        this.logger = logger;
+
+        Gauge.builder(METRIC_PREFIX + ".size", companies, Map::size)
+                .description("Companies held in the local company store")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".loaded", this, store -> store.loaded ? 1 : 0)
+                .description("Whether the local company store has read the topic up to its end offsets at start-up")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".staleness", this, KafkaCompanyDetailsStore::getStaleness)
+                .description("Milliseconds since the newest record applied to the local company store was written")
+                .baseUnit("milliseconds")
+                .register(registry);
+        this.hits = Counter.builder(METRIC_PREFIX + ".lookups").tag("result", "hit").register(registry);
+        this.misses = Counter.builder(METRIC_PREFIX + ".lookups").tag("result", "miss").register(registry);
+    }
+
+    @Override
+    public Optional<CompanyDetails> find(final String companyNumber) {
+        Optional<CompanyDetails> companyDetails = Optional.ofNullable(companies.get(companyNumber));
+        (companyDetails.isPresent() ? hits : misses).increment();
+        return companyDetails;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public void start() {
+        logger.trace("start(topic=%s) method called.".formatted(topic));
+
+        running = true;
+        loader = Thread.ofPlatform().daemon().name("company-store-loader").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        logger.trace("stop(topic=%s) method called.".formatted(topic));
+
+        running = false;
+        Consumer<String, String> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        try {
+            if (loader != null) {
+                loader.join(pollTimeout.plusSeconds(5).toMillis());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void run() {
+        try (Consumer<String, String> kafkaConsumer = consumerFactory.createConsumer()) {
+            consumer = kafkaConsumer;
+
+            List<TopicPartition> partitions = kafkaConsumer.partitionsFor(topic).stream()
+                    .map(info -> new TopicPartition(topic, info.partition()))
+                    .toList();
+            kafkaConsumer.assign(partitions);
+            kafkaConsumer.seekToBeginning(partitions);
+
+            // The store counts as loaded once it has caught up with the topic as it stood at start-up.
+            Map<TopicPartition, Long> loadTarget = kafkaConsumer.endOffsets(partitions);
+            logger.info("Loading company store from topic %s: %s".formatted(topic, loadTarget));
+
+            while (running) {
+                kafkaConsumer.poll(pollTimeout).forEach(this::apply);
+
+                if (!loaded && partitions.stream().allMatch(tp -> kafkaConsumer.position(tp) >= loadTarget.get(tp))) {
+                    loaded = true;
+                    logger.info("Company store loaded from topic %s with %d companies.".formatted(topic, companies.size()));
+                }
+            }
+
+        } catch (WakeupException ex) {
+            // Raised by stop() to end the poll.
+        } catch (KafkaException ex) {
+            logger.error("Company store stopped following topic %s, lookups will fall back to the API.".formatted(topic), ex);
+        } finally {
+            consumer = null;
+        }
+    }
+
+    void apply(final ConsumerRecord<String, String> record) {
+        String companyNumber = record.key();
+        if (companyNumber == null) {
+            return;
+        }
+
+        if (record.value() == null) {
+            companies.remove(companyNumber);
+        } else {
+            try {
+                JsonNode profile = mapper.readTree(record.value());
+
+                CompanyDetails companyDetails = new CompanyDetails();
+                companyDetails.setCompanyNumber(companyNumber);
+                companyDetails.setCompanyName(profile.path("company_name").asText(null));
+                companyDetails.setCompanyStatus(profile.path("company_status").asText(null));
+
+                companies.put(companyNumber, companyDetails);
+
+            } catch (JsonProcessingException ex) {
+                // A bad record is skipped; lookups for that company fall back to the API.
+                logger.error("Skipping unreadable company profile for %s at offset %d.".formatted(companyNumber, record.offset()), ex);
+            }
+        }
+
+        latestRecordTimestamp = Math.max(latestRecordTimestamp, record.timestamp());
+    }
+
+    private double getStaleness() {
+        return latestRecordTimestamp < 0 ? Double.NaN : clock.millis() - latestRecordTimestamp;
+    }
+}
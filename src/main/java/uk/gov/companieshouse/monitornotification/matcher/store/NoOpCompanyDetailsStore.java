@@ -0,0 +1,19 @@
+package uk.gov.companieshouse.monitornotification.matcher.store;
+
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+
+/**
+ * Used when the local store is disabled, so every lookup goes to the cache or the Company Profile API.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.company.store.enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpCompanyDetailsStore implements CompanyDetailsStore {
+
+    @Override
+    public Optional<CompanyDetails> find(final String companyNumber) {
+        return Optional.empty();
+    }
+}
@@ -3,139 +3,155 @@ package uk.gov.companieshouse.monitornotification.matcher.utils;
 import static java.lang.Boolean.FALSE;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.Collections;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.util.Map;
 import java.util.Optional;
 import monitor.filing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.model.FilingData;
 import uk.gov.companieshouse.monitornotification.matcher.model.FilingHistory;
+import uk.gov.companieshouse.monitornotification.matcher.model.NotificationMatchPayload;
 
 @Component
+@ConditionalOnProperty(name = "spring.kafka.consumer.notify.payload-parser", havingValue = "tree", matchIfMissing = true)
 public class NotificationMatchDataExtractor {
 
-    private static final String ERROR_EXTRACTING_JSON_NODE = "An error occurred while attempting to extract the JsonNode: %s";
+    protected static final String ERROR_EXTRACTING_PAYLOAD = "An error occurred while attempting to extract the notification match payload: %s";
 
-    private final ObjectMapper mapper;
+    private final ObjectReader payloadReader;
     private final Logger logger;
 
     public NotificationMatchDataExtractor(final ObjectMapper mapper, final Logger logger) {
-        this.mapper = mapper;
+        // Built once, so the deserializers for the payload records are resolved at startup rather than per message.
+        this.payloadReader = mapper.readerFor(NotificationMatchPayload.class)
+                .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
         this.logger = logger;
     }
 
-    public Optional<String> getCompanyNumber(final filing message) {
-        logger.trace("getCompanyNumber(message=%s) method called.".formatted(message));
+    /**
+     * Wrap the message so that its payload is bound once, however many values are extracted from it.
+     *
+     * @param message the notification match message.
+     * @return a view of the message that shares a single bind of its payload.
+     */
+    public ParsedNotificationMatch parse(final filing message) {
+        logger.trace("parse(message=%s) method called.".formatted(message));
 
-        Optional<JsonNode> companyNumber = getOptionalNodeValue(findDataNode(message), "company_number");
-        return companyNumber.map(JsonNode::asText);
+        return new ParsedNotificationMatch(message, this::readPayload);
     }
 
-    public Boolean isDelete(final filing message) {
-        logger.trace("isDelete(message=%s) method called.".formatted(message));
-
-        Optional<JsonNode> isDelete = getOptionalNodeValue(findDataNode(message), "is_delete");
-        return isDelete.map(JsonNode::asBoolean).orElse(FALSE);
+    public Optional<String> getCompanyNumber(final filing message) {
+        return getCompanyNumber(parse(message));
     }
 
-    public FilingHistory getFilingHistory(final filing message) {
-        logger.trace("getFilingHistory(message=%s) method called.".formatted(message));
-
-        String type = getFilingType(message);
-        String description = getFilingDescription(message);
-        String date = getFilingDate(message);
+    public Optional<String> getCompanyNumber(final ParsedNotificationMatch match) {
+        logger.trace("getCompanyNumber(message=%s) method called.".formatted(match));
 
-        return new FilingHistory(type, description, date);
+        String companyNumber = match.getPayload().companyNumber();
+        if(companyNumber == null) {
+            logger.debug("The given payload does not contain a valid 'company_number' attribute!");
+        }
+        return Optional.ofNullable(companyNumber);
     }
 
-    private String getFilingType(final filing message) {
-        logger.trace("getFilingType(message=%s) method called.".formatted(message));
-
-        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "type");
-        return filingType.asText();
+    public Boolean isDelete(final filing message) {
+        return isDelete(parse(message));
     }
 
-    private String getFilingDescription(final filing message) {
-        logger.trace("getFilingDescription(message=%s) method called.".formatted(message));
+    public Boolean isDelete(final ParsedNotificationMatch match) {
+        logger.trace("isDelete(message=%s) method called.".formatted(match));
 
-        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "description");
-        return filingType.asText();
+        Boolean isDelete = match.getPayload().isDelete();
+        if(isDelete == null) {
+            logger.debug("The given payload does not contain a valid 'is_delete' attribute!");
+            return FALSE;
+        }
+        return isDelete;
     }
 
-    private String getFilingDate(final filing message) {
-        logger.trace("getFilingDate(message=%s) method called.".formatted(message));
-
-        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "date");
-        return filingType.asText();
+    public FilingHistory getFilingHistory(final filing message) {
+        return getFilingHistory(parse(message));
     }
 
-    public Map<String, String> getDescriptionValues(final filing message) {
-        logger.trace("getDescriptionValues(message=%s) method called.".formatted(message));
+    public FilingHistory getFilingHistory(final ParsedNotificationMatch match) {
+        logger.trace("getFilingHistory(message=%s) method called.".formatted(match));
 
-        Optional<JsonNode> descriptionValues = getOptionalNodeValue(findNestedDataNode(message), "description_values");
+        FilingData filingData = getFilingData(match);
 
-        if(descriptionValues.isEmpty()) {
-            logger.debug(String.format("No description values found for message: %s", descriptionValues));
-            return Collections.emptyMap();
-        }
+        String type = getMandatoryValue(filingData.type(), "type");
+        String description = getMandatoryValue(filingData.description(), "description");
+        String date = getMandatoryValue(filingData.date(), "date");
 
-        return mapper.convertValue(descriptionValues.get(), new TypeReference<>() { });
+        return new FilingHistory(type, description, date);
     }
 
-    public Optional<JsonNode> getOptionalNodeValue(final JsonNode node, final String attribute) {
-        logger.trace("getOptionalNodeValue(node=%s, attribute=%s) method called.".formatted(node, attribute));
+    public Map<String, String> getDescriptionValues(final filing message) {
+        return getDescriptionValues(parse(message));
+    }
+
+    public Map<String, String> getDescriptionValues(final ParsedNotificationMatch match) {
+        logger.trace("getDescriptionValues(message=%s) method called.".formatted(match));
+
+        Map<String, String> descriptionValues = getFilingData(match).descriptionValues();
 
-        if(node == null || !node.has(attribute)) {
-            logger.debug("The given node does not contain a valid '%s' attribute!".formatted(attribute));
-            return Optional.empty();
+        if(descriptionValues.isEmpty()) {
+            logger.debug(String.format("No description values found for message: %s", match));
         }
 
-        return Optional.ofNullable(node.get(attribute));
+        return descriptionValues;
     }
 
-    public JsonNode getMandatoryNodeValue(final JsonNode node, final String attribute) throws IllegalArgumentException {
-        logger.trace("getMandatoryNodeValue(node=%s, attribute=%s) method called.".formatted(node, attribute));
+    public FilingData getFilingData(final ParsedNotificationMatch match) {
+        logger.trace("getFilingData(message=%s) method called.".formatted(match));
 
-        if(node == null || !node.has(attribute)) {
-            logger.info("The given node does not contain a valid '%s' node!".formatted(attribute));
-            throw new IllegalArgumentException("Supplied node does not contain a valid '%s' node!".formatted(attribute));
+        FilingData filingData = match.getPayload().data();
+        if(filingData == null || isEmpty(filingData)) {
+            logger.error(ERROR_EXTRACTING_PAYLOAD.formatted("data"));
+            throw new NonRetryableException(ERROR_EXTRACTING_PAYLOAD.formatted("data"),
+                    new IllegalArgumentException("No nested 'data' node found in message payload!"));
         }
-
-        return node.get(attribute);
+        return filingData;
     }
 
-    public JsonNode findNestedDataNode(final filing message) {
-        logger.trace("findNestedDataNode(message=%s) method called.".formatted(message));
+    /**
+     * Bind the JSON payload of the message, rejecting any payload that is not well-formed or does not
+     * match the shape of {@link NotificationMatchPayload}.
+     *
+     * @param message the notification match message.
+     * @return the bound payload.
+     * @throws NonRetryableException if the payload cannot be bound.
+     */
+    public NotificationMatchPayload readPayload(final filing message) {
+        logger.trace("readPayload(message=%s) method called.".formatted(message));
         try {
-            JsonNode dataNode = findDataNode(message);
-            JsonNode nestedNode = dataNode.get("data");
-
-            if(nestedNode == null || nestedNode.isEmpty()) {
-                logger.debug("No nested 'data' node found in message payload, result was: %s".formatted(dataNode));
-                throw new IllegalArgumentException("No nested 'data' node found in message payload!");
+            NotificationMatchPayload payload = payloadReader.readValue(message.getData());
+            if(payload == null) {
+                throw new IllegalArgumentException("No payload found in message!");
             }
+            return payload;
 
-            return nestedNode;
-
-        } catch (IllegalArgumentException e) {
-            logger.error(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
-            throw new NonRetryableException(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.error(ERROR_EXTRACTING_PAYLOAD.formatted("data"), e);
+            throw new NonRetryableException(ERROR_EXTRACTING_PAYLOAD.formatted("data"), e);
         }
     }
 
-    public JsonNode findDataNode(final filing message) {
-        logger.trace("findDataNode(message=%s) method called.".formatted(message));
-        try {
-            return mapper.readTree(message.getData());
+    private static boolean isEmpty(final FilingData filingData) {
+        // An empty 'data' object is rejected as if it were missing, as the payload cannot be matched without it.
+        return filingData.type() == null && filingData.description() == null && filingData.date() == null
+                && filingData.descriptionValues().isEmpty();
+    }
 
-        } catch (JsonProcessingException e) {
-            logger.error(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
-            throw new NonRetryableException(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+    private String getMandatoryValue(final String value, final String attribute) {
+        if(value == null) {
+            logger.info("The given payload does not contain a valid '%s' attribute!".formatted(attribute));
+            throw new IllegalArgumentException("Supplied payload does not contain a valid '%s' attribute!".formatted(attribute));
         }
+        return value;
     }
-
 }
@@ -0,0 +1,43 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import java.util.function.Function;
+import monitor.filing;
+import uk.gov.companieshouse.monitornotification.matcher.model.NotificationMatchPayload;
+
+/**
+ * A notification match message along with its bound JSON payload, so that every extraction step
+ * shares a single bind. The payload is bound on first use and kept.<br>
+ * <br>
+ * Instances are built by the {@link NotificationMatchDataExtractor}. The payload is not guarded, so an instance
+ * must only be used by one thread at a time. In key-ordered mode it is bound on the listener thread (for the
+ * ordering key) and then read on a worker thread. Handing the task to the executor makes the bound payload
+ * visible there, and the listener thread no longer uses it.
+ */
+public class ParsedNotificationMatch {
+
+    private final filing message;
+    private final Function<filing, NotificationMatchPayload> payloadReader;
+
+    private NotificationMatchPayload payload;
+
+    ParsedNotificationMatch(final filing message, final Function<filing, NotificationMatchPayload> payloadReader) {
+        this.message = message;
+        this.payloadReader = payloadReader;
+    }
+
+    public filing getMessage() {
+        return message;
+    }
+
+    public NotificationMatchPayload getPayload() {
+        if (payload == null) {
+            payload = payloadReader.apply(message);
+        }
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return message.toString();
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.util.Map;
+import monitor.filing;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.model.FilingData;
+import uk.gov.companieshouse.monitornotification.matcher.model.NotificationMatchPayload;
+
+/**
+ * Extracts the notification match data using Jackson's streaming parser rather than data binding.<br>
+ * <br>
+ * The payload records are built straight from the parser: {@code company_number}, {@code is_delete},
+ * and the {@code type}, {@code description}, {@code date} and {@code description_values} of the nested
+ * filing data. Every other subtree (e.g. {@code links}, {@code category}) is skipped by the parser
+ * without being read.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.consumer.notify.payload-parser", havingValue = "streaming")
+public class StreamingNotificationMatchDataExtractor extends NotificationMatchDataExtractor {
+
+    private final ObjectMapper mapper;
+    private final ObjectReader descriptionValuesReader;
+    private final ObjectReader booleanReader;
+    private final Logger logger;
+
+    public StreamingNotificationMatchDataExtractor(final ObjectMapper mapper, final Logger logger) {
+        super(mapper, logger);
+        this.mapper = mapper;
+        this.descriptionValuesReader = mapper.readerFor(new TypeReference<Map<String, String>>() { });
+        // Read with the same deserializer and coercion rules as binding, so that both parsers agree on any value.
+        this.booleanReader = mapper.readerFor(Boolean.class);
+        this.logger = logger;
+    }
+
+    @Override
+    public NotificationMatchPayload readPayload(final filing message) {
+        logger.trace("readPayload(message=%s) method called.".formatted(message));
+        try (JsonParser parser = mapper.createParser(message.getData())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("No payload found in message!");
+            }
+
+            String companyNumber = null;
+            Boolean isDelete = null;
+            FilingData data = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+
+                switch (fieldName) {
+                    case "company_number" -> companyNumber = readText(parser, valueToken);
+                    case "is_delete" -> isDelete = booleanReader.readValue(parser);
+                    case "data" -> data = readFilingData(parser, valueToken);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("Unexpected content found after the payload!");
+            }
+
+            return new NotificationMatchPayload(companyNumber, isDelete, data);
+
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error(ERROR_EXTRACTING_PAYLOAD.formatted("data"), e);
+            throw new NonRetryableException(ERROR_EXTRACTING_PAYLOAD.formatted("data"), e);
+        }
+    }
+
+    private FilingData readFilingData(final JsonParser parser, final JsonToken dataToken) throws IOException {
+        if (dataToken == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (dataToken != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected an object value for 'data' but found %s".formatted(dataToken));
+        }
+
+        String type = null;
+        String description = null;
+        String date = null;
+        Map<String, String> descriptionValues = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+
+            switch (fieldName) {
+                case "type" -> type = readText(parser, valueToken);
+                case "description" -> description = readText(parser, valueToken);
+                case "date" -> date = readText(parser, valueToken);
+                case "description_values" -> descriptionValues = valueToken == JsonToken.VALUE_NULL
+                        ? null : descriptionValuesReader.readValue(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new FilingData(type, description, date, descriptionValues);
+    }
+
+    private static String readText(final JsonParser parser, final JsonToken valueToken) throws IOException {
+        if (!valueToken.isScalarValue()) {
+            // Binding would reject a structured value where text is expected, so the streaming parser does too.
+            throw new IllegalArgumentException("Expected a text value for '%s' but found %s".formatted(parser.currentName(), valueToken));
+        }
+        return parser.getValueAsString();
+    }
+}
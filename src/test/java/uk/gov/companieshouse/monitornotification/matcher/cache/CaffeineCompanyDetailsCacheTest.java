@@ -0,0 +1,150 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildCompanyDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+class CaffeineCompanyDetailsCacheTest {
+
+    SimpleMeterRegistry registry;
+    CompanyCacheProperties properties;
+
+    CaffeineCompanyDetailsCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        properties = new CompanyCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaximumSize(100);
+        properties.setExpireAfterWrite(60_000L);
+        properties.setNotFoundMaximumSize(100);
+        properties.setNotFoundExpireAfterWrite(10_000L);
+
+        underTest = new CaffeineCompanyDetailsCache(properties, registry);
+    }
+
+    @Test
+    void givenCompanyCached_whenGet_thenReturnCompany() {
+        CompanyDetails companyDetails = buildCompanyDetails();
+
+        underTest.put(COMPANY_NUMBER, companyDetails);
+
+        Optional<CompanyDetails> result = underTest.get(COMPANY_NUMBER);
+
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), is(companyDetails));
+    }
+
+    @Test
+    void givenCompanyNotCached_whenGet_thenReturnEmpty() {
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenLookups_whenMetricsRead_thenHitsAndMissesReported() {
+        underTest.get(COMPANY_NUMBER);
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        underTest.get(COMPANY_NUMBER);
+        underTest.get(COMPANY_NUMBER);
+
+        double hits = registry.get("cache.gets").tag("cache", "company-details").tag("result", "hit").functionCounter().count();
+        double misses = registry.get("cache.gets").tag("cache", "company-details").tag("result", "miss").functionCounter().count();
+
+        assertThat(hits, is(2.0));
+        assertThat(misses, is(1.0));
+    }
+
+    @Test
+    void givenZeroExpiry_whenGet_thenReturnEmpty() {
+        properties.setExpireAfterWrite(0L);
+        underTest = new CaffeineCompanyDetailsCache(properties, new SimpleMeterRegistry());
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenCompanyCached_whenInvalidated_thenReturnEmpty() {
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        underTest.invalidate(COMPANY_NUMBER);
+
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenCompanyNotFound_whenIsNotFound_thenReturnTrue() {
+        assertThat(underTest.isNotFound(COMPANY_NUMBER), is(false));
+
+        underTest.putNotFound(COMPANY_NUMBER);
+
+        assertThat(underTest.isNotFound(COMPANY_NUMBER), is(true));
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenNotFoundLookups_whenMetricsRead_thenReportedSeparately() {
+        underTest.putNotFound(COMPANY_NUMBER);
+        underTest.isNotFound(COMPANY_NUMBER);
+
+        double notFoundHits = registry.get("cache.gets").tag("cache", "company-not-found").tag("result", "hit").functionCounter().count();
+        double detailsHits = registry.get("cache.gets").tag("cache", "company-details").tag("result", "hit").functionCounter().count();
+
+        assertThat(notFoundHits, is(1.0));
+        assertThat(detailsHits, is(0.0));
+    }
+
+    @Test
+    void givenRefreshAfterWriteDisabled_whenRefreshChecked_thenNeverDue() {
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(false));
+    }
+
+    @Test
+    void givenEntryOlderThanRefreshAfterWrite_whenRefreshChecked_thenDueForRefresh() throws InterruptedException {
+        properties.setRefreshAfterWrite(1L);
+        underTest = new CaffeineCompanyDetailsCache(properties, new SimpleMeterRegistry());
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(true));
+        assertThat(underTest.isDueForRefresh("99999999"), is(false));
+    }
+
+    @Test
+    void givenCompanyPutWithRemainingExpiry_whenRead_thenExpiresNoLaterThanRemaining() {
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails(), 30_000L);
+        underTest.get(COMPANY_NUMBER);
+
+        long expiresAfter = underTest.expiresAfter(COMPANY_NUMBER).getAsLong();
+        assertThat(expiresAfter, is(greaterThan(0L)));
+        assertThat(expiresAfter, is(lessThanOrEqualTo(30_000L)));
+        assertThat(underTest.entries().get(COMPANY_NUMBER).expiresAfter(), is(lessThanOrEqualTo(30_000L)));
+    }
+
+    @Test
+    void givenCompanyPutWithRemainingExpiry_whenRefreshChecked_thenAgedFromOriginalWrite() {
+        properties.setRefreshAfterWrite(20_000L);
+        underTest = new CaffeineCompanyDetailsCache(properties, new SimpleMeterRegistry());
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails(), 30_000L);
+
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(true));
+    }
+}
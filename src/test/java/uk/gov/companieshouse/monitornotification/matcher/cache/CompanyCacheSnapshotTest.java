@@ -0,0 +1,183 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NAME;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildCompanyDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+class CompanyCacheSnapshotTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    CompanyCacheProperties properties;
+    Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CompanyCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaximumSize(100);
+        properties.setExpireAfterWrite(60_000L);
+        properties.setNotFoundMaximumSize(100);
+        properties.setNotFoundExpireAfterWrite(10_000L);
+        properties.setSnapshotEnabled(true);
+        properties.setSnapshotPath(directory.resolve("company-details.snapshot").toString());
+        properties.setSnapshotInterval(0L);
+        properties.setSnapshotMaxAge(60_000L);
+
+        logger = mock(Logger.class);
+    }
+
+    @Test
+    void givenSnapshotSaved_whenLoadedIntoNewCache_thenCompaniesRestored() {
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        CompanyDetails withoutStatus = new CompanyDetails();
+        withoutStatus.setCompanyNumber("00000001");
+        withoutStatus.setCompanyName("ANOTHER COMPANY");
+        source.put("00000001", withoutStatus);
+
+        newSnapshot(source, NOW).save();
+
+        CaffeineCompanyDetailsCache target = newCache();
+        int loaded = newSnapshot(target, NOW + 1000L).load();
+
+        assertThat(loaded, is(2));
+        assertThat(target.get(COMPANY_NUMBER).get().getCompanyName(), is(COMPANY_NAME));
+        assertThat(target.get("00000001").get().getCompanyName(), is("ANOTHER COMPANY"));
+        assertThat(target.get("00000001").get().getCompanyStatus(), is(nullValue()));
+    }
+
+    @Test
+    void givenSnapshotTooOld_whenLoaded_thenIgnored() {
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+        newSnapshot(source, NOW).save();
+
+        CaffeineCompanyDetailsCache target = newCache();
+        int loaded = newSnapshot(target, NOW + 60_001L).load();
+
+        assertThat(loaded, is(0));
+        assertThat(target.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenSnapshotSaved_whenLoaded_thenCompaniesKeepRemainingExpiry() {
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+        newSnapshot(source, NOW).save();
+
+        CaffeineCompanyDetailsCache target = newCache();
+        newSnapshot(target, NOW + 30_000L).load();
+
+        long expiresAfter = target.expiresAfter(COMPANY_NUMBER).getAsLong();
+        assertThat(expiresAfter, is(greaterThan(0L)));
+        assertThat(expiresAfter, is(lessThanOrEqualTo(30_000L)));
+    }
+
+    @Test
+    void givenCompanyExpiredSinceSnapshotSaved_whenLoaded_thenCompanyNotRestored() {
+        properties.setSnapshotMaxAge(120_000L);
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+        newSnapshot(source, NOW).save();
+
+        CaffeineCompanyDetailsCache target = newCache();
+        int loaded = newSnapshot(target, NOW + 60_001L).load();
+
+        assertThat(loaded, is(0));
+        assertThat(target.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenNoSnapshot_whenLoaded_thenNothingLoaded() {
+        assertThat(newSnapshot(newCache(), NOW).load(), is(0));
+    }
+
+    @Test
+    void givenTruncatedSnapshot_whenLoaded_thenNothingLoaded() throws IOException {
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+        newSnapshot(source, NOW).save();
+
+        Path path = Path.of(properties.getSnapshotPath());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 4));
+
+        CaffeineCompanyDetailsCache target = newCache();
+
+        assertThat(newSnapshot(target, NOW).load(), is(0));
+        assertThat(target.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenSnapshotEnabled_whenShutdown_thenSnapshotWritten() {
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        CompanyCacheSnapshot underTest = newSnapshot(source, NOW);
+        underTest.start();
+        underTest.shutdown();
+
+        assertThat(Files.isRegularFile(Path.of(properties.getSnapshotPath())), is(true));
+    }
+
+    @Test
+    void givenSnapshotCannotReplaceTarget_whenSaved_thenTemporaryFileRemoved() throws IOException {
+        // A non-empty directory at the snapshot path makes the final move fail after the temporary file is written.
+        Path path = Path.of(properties.getSnapshotPath());
+        Files.createDirectories(path);
+        Files.createFile(path.resolve("occupied"));
+
+        CaffeineCompanyDetailsCache source = newCache();
+        source.put(COMPANY_NUMBER, buildCompanyDetails());
+        newSnapshot(source, NOW).save();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".tmp")).count(), is(0L));
+        }
+        assertThat(Files.isDirectory(path), is(true));
+    }
+
+    @Test
+    void givenNoSnapshotPath_whenCreated_thenIllegalStateExceptionThrown() {
+        properties.setSnapshotPath("");
+        CaffeineCompanyDetailsCache cache = newCache();
+
+        assertThrows(IllegalStateException.class, () -> newSnapshot(cache, NOW));
+    }
+
+    private CaffeineCompanyDetailsCache newCache() {
+        return new CaffeineCompanyDetailsCache(properties, new SimpleMeterRegistry());
+    }
+
+    private CompanyCacheSnapshot newSnapshot(final CaffeineCompanyDetailsCache cache, final long now) {
+        return new CompanyCacheSnapshot(cache, properties, Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC), logger);
+    }
+}
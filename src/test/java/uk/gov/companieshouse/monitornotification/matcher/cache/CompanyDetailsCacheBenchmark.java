@@ -0,0 +1,89 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+/**
+ * Compares the on-heap (Caffeine) and off-heap company details caches, filled with the given number of
+ * companies. Lookup latency is measured from several threads at once; the heap retained by the filled cache
+ * is printed once it has been filled, and the GC profiler reports the allocation per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class CompanyDetailsCacheBenchmark {
+
+    @Param({"caffeine", "off-heap"})
+    public String backend;
+
+    @Param({"100000", "1000000"})
+    public int entries;
+
+    private CompanyDetailsCache cache;
+    private String[] companyNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompanyCacheProperties properties = new CompanyCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaximumSize(entries);
+        properties.setExpireAfterWrite(TimeUnit.HOURS.toMillis(1));
+        properties.setNotFoundMaximumSize(1000);
+        properties.setNotFoundExpireAfterWrite(60_000L);
+        properties.setOffHeapNameBytes(96);
+        properties.setOffHeapOverflowMaximumSize(1000);
+
+        // The keys are built up front, so formatting them is neither measured nor counted as the cache's heap.
+        companyNumbers = new String[entries];
+        for (int i = 0; i < entries; i++) {
+            companyNumbers[i] = "%08d".formatted(i);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        cache = "off-heap".equals(backend)
+                ? new OffHeapCompanyDetailsCache(properties, new SimpleMeterRegistry())
+                : new CaffeineCompanyDetailsCache(properties, new SimpleMeterRegistry());
+        for (int i = 0; i < entries; i++) {
+            CompanyDetails companyDetails = new CompanyDetails();
+            companyDetails.setCompanyNumber(companyNumbers[i]);
+            companyDetails.setCompanyName("COMPANY NUMBER %d HOLDINGS LIMITED".formatted(i));
+            cache.put(companyNumbers[i], companyDetails);
+        }
+
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("%n%s cache of %d entries retains about %d MB of heap%n", backend, entries,
+                (heapAfter - heapBefore) / (1024 * 1024));
+    }
+
+    @Benchmark
+    public Optional<CompanyDetails> get() {
+        return cache.get(companyNumbers[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+}
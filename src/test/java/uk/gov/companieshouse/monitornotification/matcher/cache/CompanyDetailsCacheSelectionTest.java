@@ -0,0 +1,82 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheBackend;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+/**
+ * Binds the production application.yml, so that the cache backend is chosen from the same relaxed values
+ * (e.g. {@code off-heap}) as the bound {@link CompanyCacheBackend}.
+ */
+class CompanyDetailsCacheSelectionTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> applicationYaml().forEach(context.getEnvironment().getPropertySources()::addLast))
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+            .withUserConfiguration(CompanyCacheProperties.class, CaffeineCompanyDetailsCache.class,
+                    OffHeapCompanyDetailsCache.class, NoOpCompanyDetailsCache.class,
+                    OffHeapCompanyCacheSnapshotCheck.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    private static List<PropertySource<?>> applicationYaml() {
+        try {
+            return new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Test
+    void givenDefaultBackend_whenContextStarted_thenCaffeineCacheCreated() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(CompanyCacheProperties.class).getBackend(), is(CompanyCacheBackend.CAFFEINE));
+            assertThat(context.getBean(CompanyDetailsCache.class) instanceof CaffeineCompanyDetailsCache, is(true));
+        });
+    }
+
+    @Test
+    void givenOffHeapBackendInEnvironment_whenContextStarted_thenOffHeapCacheCreated() {
+        contextRunner.withSystemProperties("COMPANY_CACHE_BACKEND=off-heap").run(context -> {
+            assertThat(context.getBean(CompanyCacheProperties.class).getBackend(), is(CompanyCacheBackend.OFF_HEAP));
+            assertThat(context.getBean(CompanyDetailsCache.class) instanceof OffHeapCompanyDetailsCache, is(true));
+        });
+    }
+
+    @Test
+    void givenCacheDisabled_whenContextStarted_thenNoOpCacheCreated() {
+        contextRunner.withSystemProperties("COMPANY_CACHE_ENABLED=false", "COMPANY_CACHE_BACKEND=off-heap").run(context ->
+                assertThat(context.getBean(CompanyDetailsCache.class) instanceof NoOpCompanyDetailsCache, is(true)));
+    }
+
+    @Test
+    void givenOffHeapBackendWithSnapshotEnabled_whenContextStarted_thenStartupFails() {
+        contextRunner.withSystemProperties("COMPANY_CACHE_BACKEND=off-heap", "COMPANY_CACHE_SNAPSHOT_ENABLED=true")
+                .run(context -> {
+                    assertThat(context.getStartupFailure(), is(notNullValue()));
+                    assertThat(context.getStartupFailure(), is(instanceOf(BeanCreationException.class)));
+                });
+    }
+
+    @Test
+    void givenOffHeapBackendWithSnapshotDisabled_whenContextStarted_thenNoCheckCreated() {
+        contextRunner.withSystemProperties("COMPANY_CACHE_BACKEND=off-heap").run(context ->
+                assertThat(context.getBeansOfType(OffHeapCompanyCacheSnapshotCheck.class).isEmpty(), is(true)));
+    }
+}
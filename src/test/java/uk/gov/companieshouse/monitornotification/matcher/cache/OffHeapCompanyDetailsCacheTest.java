@@ -0,0 +1,261 @@
+package uk.gov.companieshouse.monitornotification.matcher.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NAME;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildCompanyDetails;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyCacheProperties;
+
+class OffHeapCompanyDetailsCacheTest {
+
+    private static final Instant NOW = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    SimpleMeterRegistry registry;
+    CompanyCacheProperties properties;
+
+    OffHeapCompanyDetailsCache underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        properties = new CompanyCacheProperties();
+        properties.setEnabled(true);
+        properties.setMaximumSize(64);
+        properties.setExpireAfterWrite(60_000L);
+        properties.setNotFoundMaximumSize(100);
+        properties.setNotFoundExpireAfterWrite(10_000L);
+        properties.setOffHeapNameBytes(32);
+        properties.setOffHeapOverflowMaximumSize(100);
+
+        underTest = new OffHeapCompanyDetailsCache(properties, registry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void givenCompanyCached_whenGet_thenReturnNumberAndName() {
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+
+        Optional<CompanyDetails> result = underTest.get(COMPANY_NUMBER);
+
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().getCompanyNumber(), is(COMPANY_NUMBER));
+        assertThat(result.get().getCompanyName(), is(COMPANY_NAME));
+        assertThat(underTest.get("SC006400").isPresent(), is(false));
+    }
+
+    @Test
+    void givenCompanyCachedTwice_whenGet_thenLatestNameReturned() {
+        CompanyDetails renamed = buildCompanyDetails();
+        renamed.setCompanyName("RENAMED LIMITED");
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        underTest.put(COMPANY_NUMBER, renamed);
+
+        assertThat(underTest.get(COMPANY_NUMBER).get().getCompanyName(), is("RENAMED LIMITED"));
+        assertThat(registry.get("cache.size").tag("cache", "company-details").gauge().value(), is(1.0));
+    }
+
+    @Test
+    void givenMultiByteOrMissingName_whenGet_thenNameRoundTrips() {
+        CompanyDetails accented = new CompanyDetails();
+        accented.setCompanyName("CAFÉ ŁÓDŹ LTD");
+        CompanyDetails unnamed = new CompanyDetails();
+
+        underTest.put("00000001", accented);
+        underTest.put("00000002", unnamed);
+
+        assertThat(underTest.get("00000001").get().getCompanyName(), is("CAFÉ ŁÓDŹ LTD"));
+        assertThat(underTest.get("00000002").get().getCompanyName(), is(nullValue()));
+    }
+
+    @Test
+    void givenNameTooLongForSlot_whenPut_thenCachedInOverflow() {
+        CompanyDetails companyDetails = buildCompanyDetails();
+        companyDetails.setCompanyName("A".repeat(160));
+
+        underTest.put(COMPANY_NUMBER, companyDetails);
+
+        assertThat(underTest.get(COMPANY_NUMBER).get().getCompanyName(), is("A".repeat(160)));
+        assertThat(registry.get("cache.off.heap.overflow.puts").counter().count(), is(1.0));
+        assertThat(registry.get("cache.size").tag("cache", "company-details").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void givenCompanyNumberCannotBePacked_whenPut_thenCachedInOverflow() {
+        underTest.put("123456789", buildCompanyDetails());
+
+        assertThat(underTest.get("123456789").get().getCompanyName(), is(COMPANY_NAME));
+        assertThat(registry.get("cache.off.heap.overflow.puts").counter().count(), is(1.0));
+    }
+
+    @Test
+    void givenCompanyCached_whenInvalidated_thenReturnEmpty() {
+        CompanyDetails longName = buildCompanyDetails();
+        longName.setCompanyName("A".repeat(160));
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        underTest.put("123456789", buildCompanyDetails());
+        underTest.put("00000001", longName);
+
+        underTest.invalidate(COMPANY_NUMBER);
+        underTest.invalidate("123456789");
+        underTest.invalidate("00000001");
+
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+        assertThat(underTest.get("123456789").isPresent(), is(false));
+        assertThat(underTest.get("00000001").isPresent(), is(false));
+        assertThat(registry.get("cache.size").tag("cache", "company-details").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void givenNameChangesLength_whenPut_thenLatestNameReturned() {
+        CompanyDetails longName = buildCompanyDetails();
+        longName.setCompanyName("A".repeat(33));
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        underTest.put(COMPANY_NUMBER, longName);
+        assertThat(underTest.get(COMPANY_NUMBER).get().getCompanyName(), is("A".repeat(33)));
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        assertThat(underTest.get(COMPANY_NUMBER).get().getCompanyName(), is(COMPANY_NAME));
+    }
+
+    @Test
+    void givenOverflowEntryNearExpiry_whenRefreshChecked_thenDueForRefresh() {
+        properties.setRefreshAfterWrite(45_000L);
+        MutableClock clock = new MutableClock(NOW);
+        registry = new SimpleMeterRegistry();
+        underTest = new OffHeapCompanyDetailsCache(properties, registry, clock);
+
+        CompanyDetails companyDetails = buildCompanyDetails();
+        companyDetails.setCompanyName("A".repeat(33));
+        underTest.put(COMPANY_NUMBER, companyDetails);
+
+        clock.advance(Duration.ofMillis(44_999L));
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(false));
+
+        clock.advance(Duration.ofMillis(1L));
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(true));
+
+        clock.advance(Duration.ofMillis(15_000L));
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenEntryExpired_whenGet_thenReturnEmpty() {
+        MutableClock clock = new MutableClock(NOW);
+        registry = new SimpleMeterRegistry();
+        underTest = new OffHeapCompanyDetailsCache(properties, registry, clock);
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        clock.advance(Duration.ofMillis(59_999L));
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(true));
+
+        clock.advance(Duration.ofMillis(1L));
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+        assertThat(registry.get("cache.size").tag("cache", "company-details").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void givenEntryNearExpiry_whenRefreshChecked_thenDueForRefresh() {
+        properties.setRefreshAfterWrite(45_000L);
+        MutableClock clock = new MutableClock(NOW);
+        registry = new SimpleMeterRegistry();
+        underTest = new OffHeapCompanyDetailsCache(properties, registry, clock);
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        clock.advance(Duration.ofMillis(44_999L));
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(false));
+
+        clock.advance(Duration.ofMillis(1L));
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(true));
+
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        assertThat(underTest.isDueForRefresh(COMPANY_NUMBER), is(false));
+        assertThat(underTest.isDueForRefresh("99999999"), is(false));
+    }
+
+    @Test
+    void givenMoreCompaniesThanCapacity_whenPut_thenOldestEvicted() {
+        for (int i = 0; i < 1000; i++) {
+            underTest.put("%08d".formatted(i), buildCompanyDetails());
+        }
+
+        double size = registry.get("cache.size").tag("cache", "company-details").gauge().value();
+        double evictions = registry.get("cache.evictions").tag("cache", "company-details").counter().count();
+
+        assertThat(size <= 64.0, is(true));
+        assertThat(size + evictions, is(1000.0));
+        assertThat(underTest.get("%08d".formatted(999)).isPresent(), is(true));
+    }
+
+    @Test
+    void givenLookups_whenMetricsRead_thenHitsAndMissesReported() {
+        underTest.get(COMPANY_NUMBER);
+        underTest.put(COMPANY_NUMBER, buildCompanyDetails());
+        underTest.get(COMPANY_NUMBER);
+        underTest.get(COMPANY_NUMBER);
+
+        assertThat(registry.get("cache.gets").tag("cache", "company-details").tag("result", "hit").counter().count(), is(2.0));
+        assertThat(registry.get("cache.gets").tag("cache", "company-details").tag("result", "miss").counter().count(), is(1.0));
+        assertThat(registry.get("cache.off.heap.bytes").gauge().value(), is(not(0.0)));
+    }
+
+    @Test
+    void givenCompanyNotFound_whenIsNotFound_thenReturnTrue() {
+        underTest.putNotFound(COMPANY_NUMBER);
+
+        assertThat(underTest.isNotFound(COMPANY_NUMBER), is(true));
+        assertThat(underTest.get(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenCompanyNumbers_whenPacked_thenDistinctAndUnpackable() {
+        assertThat(OffHeapCompanyDetailsCache.pack("00006400"), is(not(OffHeapCompanyDetailsCache.pack("0006400"))));
+        assertThat(OffHeapCompanyDetailsCache.pack("SC123456"), is(not(0L)));
+        assertThat(OffHeapCompanyDetailsCache.pack("123456789"), is(0L));
+        assertThat(OffHeapCompanyDetailsCache.pack(""), is(0L));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package uk.gov.companieshouse.monitornotification.matcher.config;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,36 +25,108 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.companieshouse.api.InternalApiClient;
 import uk.gov.companieshouse.api.http.ApiKeyHttpClient;
 import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.HttpClientPoolProperties;
 
 @ExtendWith(MockitoExtension.class)
 public class ApiClientConfigTest {
 
+    SimpleMeterRegistry registry;
+    HttpClientPoolProperties properties;
+    PoolingHttpClientConnectionManager connectionManager;
+    CloseableHttpClient httpClient;
+    HttpTransport transport;
+
     ApiClientConfig underTest;
 
     @BeforeEach
     public void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        properties = new HttpClientPoolProperties();
+        properties.setMaxTotal(10);
+        properties.setMaxPerRoute(5);
+        properties.setKeepAlive(30000L);
+        properties.setIdleEviction(60000L);
+        properties.setValidateAfterInactivity(2000L);
+
         underTest = new ApiClientConfig(LoggerFactory.getLogger("test-logger"));
+
+        connectionManager = underTest.internalApiConnectionManager(properties, registry);
+        httpClient = underTest.internalApiHttpClient(connectionManager, properties);
+        transport = underTest.internalApiHttpTransport(httpClient);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        httpClient.close();
     }
 
     @Test
     public void testPrivateApiClientConfig() {
-        Supplier<InternalApiClient> result = underTest.internalPrivateApiClientSupplier("http://private-api.localhost", "private-api-key");
+        Supplier<InternalApiClient> result = underTest.internalPrivateApiClientSupplier("http://private-api.localhost", "private-api-key", transport);
 
         assertThat(result, is(notNullValue()));
         assertThat(result.get(), is(notNullValue()));
 
         assertThat(result.get().getInternalBasePath(), is("http://private-api.localhost"));
-        assertThat(result.get().getHttpClient().getClass(), is(ApiKeyHttpClient.class));
+        assertThat(result.get().getHttpClient(), is(instanceOf(ApiKeyHttpClient.class)));
+        assertThat(result.get().getHttpClient().getHttpRequestFactory().getTransport(), is(sameInstance(transport)));
     }
 
     @Test
     public void testKafkaApiClientConfig() {
-        Supplier<InternalApiClient> result = underTest.internalKafkaApiClientSupplier("http://kafka-api.localhost", "kafka-api-key");
+        Supplier<InternalApiClient> result = underTest.internalKafkaApiClientSupplier("http://kafka-api.localhost", "kafka-api-key", transport);
 
         assertThat(result, is(notNullValue()));
         assertThat(result.get(), is(notNullValue()));
 
         assertThat(result.get().getBasePath(), is("http://kafka-api.localhost"));
-        assertThat(result.get().getHttpClient().getClass(), is(ApiKeyHttpClient.class));
+        assertThat(result.get().getHttpClient(), is(instanceOf(ApiKeyHttpClient.class)));
+        assertThat(result.get().getHttpClient().getHttpRequestFactory().getTransport(), is(sameInstance(transport)));
+    }
+
+    @Test
+    public void testApiClientSharedAcrossCalls() {
+        Supplier<InternalApiClient> result = underTest.internalPrivateApiClientSupplier("http://private-api.localhost", "private-api-key", transport);
+
+        assertThat(result.get(), is(sameInstance(result.get())));
+        assertThat(result.get().getHttpClient().getHttpRequestFactory(), is(sameInstance(result.get().getHttpClient().getHttpRequestFactory())));
+    }
+
+    @Test
+    public void testApiClientHoldsRequestIdPerThread() {
+        InternalApiClient client = underTest.internalPrivateApiClientSupplier("http://private-api.localhost", "private-api-key", transport).get();
+
+        client.getHttpClient().setRequestId("first-request");
+        String other = CompletableFuture.supplyAsync(() -> {
+            client.getHttpClient().setRequestId("second-request");
+            return client.getHttpClient().getRequestId();
+        }).join();
+
+        assertThat(client.getHttpClient().getRequestId(), is("first-request"));
+        assertThat(other, is("second-request"));
+    }
+
+    @Test
+    public void testApiClientRequestsCarryApiKeyAndRequestId() throws IOException {
+        InternalApiClient client = underTest.internalKafkaApiClientSupplier("http://kafka-api.localhost", "kafka-api-key", transport).get();
+        client.getHttpClient().setRequestId("test-request");
+
+        HttpRequest request = client.getHttpClient().getHttpRequestFactory().buildGetRequest(new GenericUrl("http://kafka-api.localhost"));
+
+        String credentials = Base64.getEncoder().encodeToString("kafka-api-key:".getBytes(StandardCharsets.UTF_8));
+        assertThat(request.getHeaders().getAuthorization(), is("Basic " + credentials));
+        assertThat(request.getHeaders().getFirstHeaderStringValue(PooledApiKeyHttpClient.REQUEST_ID_HEADER), is("test-request"));
+    }
+
+    @Test
+    public void testConnectionPoolConfig() {
+        assertThat(connectionManager.getMaxTotal(), is(10));
+        assertThat(connectionManager.getDefaultMaxPerRoute(), is(5));
+
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "internal-api").gauge().value(), is(10.0));
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "leased").gauge().value(), is(0.0));
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "available").gauge().value(), is(0.0));
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.pending").gauge().value(), is(0.0));
     }
-}
\ No newline at end of file
+}
@@ -1,25 +1,43 @@
 package uk.gov.companieshouse.monitornotification.matcher.config;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
 import monitor.filing;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CommitStrategy;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.ConsumerTuningProfile;
 import uk.gov.companieshouse.monitornotification.matcher.config.properties.NotificationMatchConsumerProperties;
+import uk.gov.companieshouse.monitornotification.matcher.consumer.CompletedRecords;
+import uk.gov.companieshouse.monitornotification.matcher.consumer.NotificationMatchCommitCallback;
+import uk.gov.companieshouse.monitornotification.matcher.consumer.NotificationMatchRebalanceListener;
 
 @ExtendWith(MockitoExtension.class)
 public class KafkaConfigTest {
 
     private NotificationMatchConsumerProperties notificationMatchProperties;
+    private NotificationMatchRebalanceListener rebalanceListener;
+    private NotificationMatchCommitCallback commitCallback;
     private KafkaConfig underTest;
 
     @BeforeEach
@@ -30,11 +48,21 @@ public class KafkaConfigTest {
         notificationMatchProperties.setConcurrency(1);
         notificationMatchProperties.setMaxAttempts(3);
         notificationMatchProperties.setBackOffDelay(1000L);
+        notificationMatchProperties.setBatchSize(100);
+        notificationMatchProperties.setBatchMaxWait(500L);
+        notificationMatchProperties.setCommitCount(100);
+        notificationMatchProperties.setCommitInterval(1000L);
 
         String bootstrapServers = "localhost:9092";
         Logger logger = LoggerFactory.getLogger("test-logger");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-        underTest = new KafkaConfig(notificationMatchProperties, bootstrapServers, logger);
+        CompletedRecords completedRecords = new CompletedRecords();
+        rebalanceListener = new NotificationMatchRebalanceListener(completedRecords, logger);
+        commitCallback = new NotificationMatchCommitCallback(meterRegistry, completedRecords, logger);
+
+        underTest = new KafkaConfig(notificationMatchProperties, bootstrapServers, rebalanceListener, commitCallback,
+                meterRegistry, logger);
     }
 
     @Test
@@ -46,6 +74,9 @@ public class KafkaConfigTest {
         assertThat(notificationMatchProperties.getConcurrency(), is(1));
         assertThat(notificationMatchProperties.getMaxAttempts(), is(3));
         assertThat(notificationMatchProperties.getBackOffDelay(), is(1000L));
+        assertThat(notificationMatchProperties.isBatchEnabled(), is(false));
+        assertThat(notificationMatchProperties.getBatchSize(), is(100));
+        assertThat(notificationMatchProperties.getBatchMaxWait(), is(500L));
     }
 
     @Test
@@ -62,10 +93,217 @@ public class KafkaConfigTest {
         assertThat(result, is(notNullValue()));
     }
 
+    @Test
+    public void givenConfigProvider_whenCompanyStoreConsumerFactoryCreated_thenNoGroupIsSet() {
+        ConsumerFactory<String, String> result = underTest.companyStoreConsumerFactory();
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.getConfigurationProperties().get(ConsumerConfig.GROUP_ID_CONFIG), is(nullValue()));
+        assertThat(result.getConfigurationProperties().get(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG), is(false));
+    }
+
     @Test
     public void givenConfigProvider_whenKafkaListenerContainerFactoryCreated_thenNoErrorsAreRaised() {
         ConcurrentKafkaListenerContainerFactory<String, filing> result = underTest.kafkaListenerContainerFactory();
 
         assertThat(result, is(notNullValue()));
+        assertThat(result.getContainerProperties().getListenerTaskExecutor(), is(nullValue()));
+    }
+
+    @Test
+    public void givenVirtualThreadsEnabled_whenKafkaListenerContainerFactoryCreated_thenVirtualThreadExecutorIsSet() {
+        notificationMatchProperties.setVirtualThreads(true);
+
+        ConcurrentKafkaListenerContainerFactory<String, filing> result = underTest.kafkaListenerContainerFactory();
+
+        assertThat(result.getContainerProperties().getListenerTaskExecutor(), is(instanceOf(SimpleAsyncTaskExecutor.class)));
+    }
+
+    @Test
+    public void givenConfigProvider_whenKafkaBatchListenerContainerFactoryCreated_thenBatchListenerIsSet() {
+        ConcurrentKafkaListenerContainerFactory<String, filing> result =
+                underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate());
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.isBatchListener(), is(true));
+        assertThat(result.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is("100"));
+        assertThat(result.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), is("500"));
+    }
+
+    @Test
+    public void givenDefaultTuningProfile_whenKafkaConsumerFactoryCreated_thenFetchSettingsNotSet() {
+        ConsumerFactory<String, filing> result = underTest.kafkaConsumerFactory();
+
+        Map<String, Object> configuration = result.getConfigurationProperties();
+
+        assertThat(notificationMatchProperties.getTuningProfile(), is(ConsumerTuningProfile.DEFAULT));
+        assertThat(configuration.containsKey(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is(false));
+        assertThat(configuration.containsKey(ConsumerConfig.FETCH_MIN_BYTES_CONFIG), is(false));
+    }
+
+    @Test
+    public void givenCatchUpTuningProfile_whenKafkaConsumerFactoryCreated_thenFetchSettingsApplied() {
+        notificationMatchProperties.setTuningProfile(ConsumerTuningProfile.CATCH_UP);
+
+        ConsumerFactory<String, filing> result = underTest.kafkaConsumerFactory();
+
+        Map<String, Object> configuration = result.getConfigurationProperties();
+
+        assertThat(configuration.get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is(1000));
+        assertThat(configuration.get(ConsumerConfig.FETCH_MIN_BYTES_CONFIG), is(1024 * 1024));
+        assertThat(configuration.get(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), is(500));
+        assertThat(configuration.get(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG), is(8 * 1024 * 1024));
+        assertThat(configuration.get(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG), is(900_000));
+        assertThat(configuration.get(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG), is(false));
+    }
+
+    @Test
+    public void givenThroughputTuningProfile_whenKafkaBatchListenerContainerFactoryCreated_thenBatchSettingsWin() {
+        notificationMatchProperties.setTuningProfile(ConsumerTuningProfile.THROUGHPUT);
+
+        ConcurrentKafkaListenerContainerFactory<String, filing> result =
+                underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate());
+
+        assertThat(result.getConsumerFactory().getConfigurationProperties()
+                .get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is(500));
+        assertThat(result.getContainerProperties().getKafkaConsumerProperties()
+                .getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is("100"));
+    }
+
+    @Test
+    public void givenCatchUpTuningProfileAndNoBatchLimits_whenKafkaBatchListenerContainerFactoryCreated_thenProfileSettingsWin() {
+        notificationMatchProperties.setTuningProfile(ConsumerTuningProfile.CATCH_UP);
+        notificationMatchProperties.setBatchSize(null);
+        notificationMatchProperties.setBatchMaxWait(null);
+
+        Map<String, String> result = effectiveConsumerProperties(
+                underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate()));
+
+        assertThat(result.get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is("1000"));
+        assertThat(result.get(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), is("500"));
+        assertThat(result.get(ConsumerConfig.FETCH_MIN_BYTES_CONFIG), is(String.valueOf(1024 * 1024)));
+    }
+
+    @Test
+    public void givenDefaultTuningProfileAndNoBatchLimits_whenKafkaBatchListenerContainerFactoryCreated_thenBatchDefaultsApplied() {
+        notificationMatchProperties.setBatchSize(null);
+        notificationMatchProperties.setBatchMaxWait(null);
+
+        Map<String, String> result = effectiveConsumerProperties(
+                underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate()));
+
+        assertThat(result.get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is("100"));
+        assertThat(result.get(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), is("500"));
+    }
+
+    @Test
+    public void givenLatencyTuningProfileAndBatchSize_whenKafkaBatchListenerContainerFactoryCreated_thenOnlyBatchSizeOverridden() {
+        notificationMatchProperties.setTuningProfile(ConsumerTuningProfile.LATENCY);
+        notificationMatchProperties.setBatchSize(20);
+        notificationMatchProperties.setBatchMaxWait(null);
+
+        Map<String, String> result = effectiveConsumerProperties(
+                underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate()));
+
+        assertThat(result.get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG), is("20"));
+        assertThat(result.get(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG), is("50"));
+    }
+
+    @Test
+    public void givenEveryTuningProfile_whenConsumerPropertiesRead_thenSettingsSetTogether() {
+        for (ConsumerTuningProfile profile : ConsumerTuningProfile.values()) {
+            int expected = profile == ConsumerTuningProfile.DEFAULT ? 0 : 5;
+
+            assertThat(profile.getConsumerProperties().size(), is(expected));
+        }
+    }
+
+    @Test
+    public void givenDefaultRebalancing_whenKafkaConsumerFactoryCreated_thenAssignorAndInstanceIdNotSet() {
+        ConsumerFactory<String, filing> result = underTest.kafkaConsumerFactory();
+
+        Map<String, Object> configuration = result.getConfigurationProperties();
+
+        assertThat(configuration.containsKey(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG), is(false));
+        assertThat(configuration.containsKey(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG), is(false));
+    }
+
+    @Test
+    public void givenCooperativeRebalancingAndInstanceId_whenKafkaConsumerFactoryCreated_thenBothSet() {
+        notificationMatchProperties.setCooperativeRebalancing(true);
+        notificationMatchProperties.setGroupInstanceId("notification-matcher-0");
+
+        ConsumerFactory<String, filing> result = underTest.kafkaConsumerFactory();
+
+        Map<String, Object> configuration = result.getConfigurationProperties();
+
+        assertThat(configuration.get(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG), is(CooperativeStickyAssignor.class.getName()));
+        assertThat(configuration.get(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG), is("notification-matcher-0"));
+    }
+
+    @Test
+    public void givenBlankInstanceId_whenKafkaConsumerFactoryCreated_thenInstanceIdNotSet() {
+        notificationMatchProperties.setGroupInstanceId("  ");
+
+        ConsumerFactory<String, filing> result = underTest.kafkaConsumerFactory();
+
+        assertThat(result.getConfigurationProperties().containsKey(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG), is(false));
+    }
+
+    @Test
+    public void givenConfigProvider_whenListenerContainerFactoriesCreated_thenRebalanceListenerIsSet() {
+        assertThat(underTest.kafkaListenerContainerFactory().getContainerProperties().getConsumerRebalanceListener(),
+                is(rebalanceListener));
+        assertThat(underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate()).getContainerProperties()
+                .getConsumerRebalanceListener(), is(rebalanceListener));
+    }
+
+    @Test
+    public void givenRecordCommitStrategy_whenKafkaListenerContainerFactoryCreated_thenSyncCommitPerRecord() {
+        ContainerProperties result = underTest.kafkaListenerContainerFactory().getContainerProperties();
+
+        assertThat(notificationMatchProperties.getCommitStrategy(), is(CommitStrategy.RECORD));
+        assertThat(result.getAckMode(), is(ContainerProperties.AckMode.RECORD));
+        assertThat(result.isSyncCommits(), is(true));
+        assertThat(result.getCommitCallback(), is(commitCallback));
+    }
+
+    @Test
+    public void givenBatchedCommitStrategy_whenListenerContainerFactoriesCreated_thenAsyncCommitByCountAndTime() {
+        notificationMatchProperties.setCommitStrategy(CommitStrategy.BATCHED);
+
+        ContainerProperties record = underTest.kafkaListenerContainerFactory().getContainerProperties();
+        ContainerProperties batch = underTest.kafkaBatchListenerContainerFactory(underTest.kafkaTemplate()).getContainerProperties();
+
+        for (ContainerProperties result : new ContainerProperties[] {record, batch}) {
+            assertThat(result.getAckMode(), is(ContainerProperties.AckMode.COUNT_TIME));
+            assertThat(result.getAckCount(), is(100));
+            assertThat(result.getAckTime(), is(1000L));
+            assertThat(result.isSyncCommits(), is(false));
+            assertThat(result.getCommitCallback(), is(commitCallback));
+        }
+    }
+
+    @Test
+    public void givenConfigProvider_whenKafkaConsumerFactoryCreated_thenClientMetricsPublished() {
+        DefaultKafkaConsumerFactory<String, filing> result = (DefaultKafkaConsumerFactory<String, filing>) underTest.kafkaConsumerFactory();
+
+        assertThat(result.getListeners().size(), is(1));
+        assertThat(result.getListeners().get(0), is(instanceOf(MicrometerConsumerListener.class)));
+    }
+
+    /**
+     * The properties a batch consumer is created with: the consumer factory's, overridden by the container's.
+     */
+    private static Map<String, String> effectiveConsumerProperties(
+            ConcurrentKafkaListenerContainerFactory<String, filing> factory) {
+        Map<String, String> effective = new HashMap<>();
+        factory.getConsumerFactory().getConfigurationProperties()
+                .forEach((key, value) -> effective.put(key, String.valueOf(value)));
+        factory.getContainerProperties().getKafkaConsumerProperties()
+                .forEach((key, value) -> effective.put((String) key, String.valueOf(value)));
+        return effective;
     }
 }
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+
+import java.util.List;
+import java.util.Map;
+import monitor.filing;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+class CompletedRecordsTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("test-topic", 0);
+
+    CompletedRecords underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new CompletedRecords();
+    }
+
+    @Test
+    void givenCompletedRecord_whenDeliveredAgainFromFailedRecord_thenStillRemembered() {
+        underTest.add(record(0, 12L));
+
+        underTest.delivered(List.of(record(0, 10L), record(0, 11L), record(0, 12L)));
+        underTest.delivered(List.of(record(0, 10L), record(0, 11L), record(0, 12L)));
+
+        assertThat(underTest.contains(record(0, 12L)), is(true));
+    }
+
+    @Test
+    void givenCompletedRecord_whenDeliveredFromBeyondIt_thenForgotten() {
+        underTest.add(record(0, 12L));
+        underTest.add(record(1, 5L));
+
+        underTest.delivered(List.of(record(0, 13L), record(1, 5L)));
+
+        assertThat(underTest.contains(record(0, 12L)), is(false));
+        assertThat(underTest.contains(record(1, 5L)), is(true));
+    }
+
+    @Test
+    void givenCompletedRecords_whenCommittedPastSome_thenOnlyThoseForgotten() {
+        underTest.add(record(0, 10L));
+        underTest.add(record(0, 11L));
+
+        underTest.committed(Map.of(PARTITION, new OffsetAndMetadata(11L)));
+
+        assertThat(underTest.contains(record(0, 10L)), is(false));
+        assertThat(underTest.contains(record(0, 11L)), is(true));
+    }
+
+    @Test
+    void givenCompletedRecords_whenPartitionRevoked_thenForgotten() {
+        underTest.add(record(0, 10L));
+        underTest.add(record(1, 10L));
+
+        underTest.forget(List.of(PARTITION));
+
+        assertThat(underTest.contains(record(0, 10L)), is(false));
+        assertThat(underTest.contains(record(1, 10L)), is(true));
+    }
+
+    @Test
+    void givenRecordWithoutKafkaHeaders_whenAdded_thenNotRemembered() {
+        Message<filing> message = buildFilingUpdateMessage();
+
+        underTest.add(message);
+
+        assertThat(underTest.contains(message), is(false));
+    }
+
+    private static Message<filing> record(final int partition, final long offset) {
+        return MessageBuilder.fromMessage(buildFilingUpdateMessage())
+                .setHeader(KafkaHeaders.RECEIVED_TOPIC, "test-topic")
+                .setHeader(KafkaHeaders.RECEIVED_PARTITION, partition)
+                .setHeader(KafkaHeaders.OFFSET, offset)
+                .build();
+    }
+}
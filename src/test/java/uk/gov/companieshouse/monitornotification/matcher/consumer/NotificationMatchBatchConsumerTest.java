@@ -0,0 +1,241 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutIsDelete;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+
+import consumer.exception.NonRetryableErrorException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import monitor.filing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.KafkaNull;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.DeserializationExceptionHeader;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.processor.MessageProcessor;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationMatchBatchConsumerTest {
+
+    @Mock
+    MessageProcessor processor;
+
+    @Mock
+    Logger logger;
+
+    CompletedRecords completedRecords;
+
+    NotificationMatchBatchConsumer underTest;
+
+    @BeforeEach
+    void setUp() {
+        completedRecords = new CompletedRecords();
+        underTest = new NotificationMatchBatchConsumer(processor, new MessageLoggingAspect(logger), completedRecords, logger);
+    }
+
+    @Test
+    @DisplayName("Given a batch of valid messages, when consumed, then the whole batch is processed")
+    void givenValidBatch_whenConsumed_thenBatchProcessed() {
+        Message<filing> first = buildFilingUpdateMessage();
+        Message<filing> second = buildFilingDeleteMessageWithoutIsDelete();
+
+        underTest.consume(List.of(first, second));
+
+        verify(logger, times(1)).debug(anyString());
+        verify(processor, times(1)).processMessages(eq(List.of(first.getPayload(), second.getPayload())), anyList());
+    }
+
+    @Test
+    @DisplayName("Given a batch of messages, when consumed, then each message is logged and processed under its correlation ID")
+    @SuppressWarnings("unchecked")
+    void givenBatch_whenConsumed_thenEachMessageLoggedWithItsCorrelationId() {
+        Message<filing> first = withCorrelationId(withOffset(buildFilingUpdateMessage(), 10L), "first-correlation-id");
+        Message<filing> second = withCorrelationId(withOffset(buildFilingUpdateMessage(), 11L), "second-correlation-id");
+
+        underTest.consume(List.of(first, second));
+
+        verify(processor, times(1)).processMessages(List.of(first.getPayload(), second.getPayload()),
+                List.of("first-correlation-id", "second-correlation-id"));
+
+        ArgumentCaptor<Map<String, Object>> logMaps = ArgumentCaptor.forClass(Map.class);
+        verify(logger, times(2)).debug(eq("Processing kafka message"), logMaps.capture());
+        verify(logger, times(2)).debug(eq("Processed kafka message"), any(Map.class));
+
+        assertThat(logMaps.getAllValues().get(0).get("offset"), is(10L));
+        assertThat(logMaps.getAllValues().get(1).get("offset"), is(11L));
+        assertThat(logMaps.getAllValues().get(1).get("request_id"), is("second-correlation-id"));
+    }
+
+    @Test
+    @DisplayName("Given a retryable failure within a batch, when consumed, then the failed record is reported")
+    @SuppressWarnings("unchecked")
+    void givenRetryableFailure_whenConsumed_thenFailedRecordReported() {
+        Message<filing> first = buildFilingUpdateMessage();
+        Message<filing> second = buildFilingDeleteMessageWithoutIsDelete();
+
+        RetryableException cause = new RetryableException("test exception", new RuntimeException());
+        doThrow(new BatchProcessingException(1, cause)).when(processor).processMessages(anyList(), anyList());
+
+        BatchListenerFailedException expectedException = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(first, second));
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(expectedException.getCause(), is(cause));
+
+        // Only the record ahead of the failure completed.
+        verify(logger, times(1)).debug(eq("Processed kafka message"), any(Map.class));
+    }
+
+    @Test
+    @DisplayName("Given a non-retryable failure within a batch, when consumed, then the failed record is reported")
+    void givenNonRetryableFailure_whenConsumed_thenFailedRecordReported() {
+        Message<filing> first = buildFilingUpdateMessage();
+
+        NonRetryableException cause = new NonRetryableException("test exception");
+        doThrow(new BatchProcessingException(0, cause)).when(processor).processMessages(anyList(), anyList());
+
+        BatchListenerFailedException expectedException = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(first));
+        });
+
+        assertThat(expectedException.getIndex(), is(0));
+        assertThat(expectedException.getCause(), is(cause));
+    }
+
+    @Test
+    @DisplayName("Given records completed after a failure, when the failed record fails again, then they are never processed again")
+    void givenRecordsCompletedAfterFailure_whenFailedRecordFailsTwice_thenCompletedRecordsSkipped() {
+        Message<filing> first = withOffset(buildFilingUpdateMessage(), 10L);
+        Message<filing> second = withOffset(buildFilingDeleteMessageWithoutIsDelete(), 11L);
+        Message<filing> third = withOffset(buildFilingUpdateMessage(), 12L);
+
+        RetryableException cause = new RetryableException("test exception", new RuntimeException());
+        doThrow(new BatchProcessingException(0, cause, Set.of(2)))
+                .doThrow(new BatchProcessingException(0, cause))
+                .doNothing()
+                .when(processor).processMessages(anyList(), anyList());
+
+        BatchListenerFailedException firstAttempt = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(first, second, third));
+        });
+        BatchListenerFailedException secondAttempt = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(first, second, third));
+        });
+        underTest.consume(List.of(first, second, third));
+
+        verify(processor, times(1)).processMessages(eq(List.of(first.getPayload(), second.getPayload(), third.getPayload())), anyList());
+        verify(processor, times(2)).processMessages(eq(List.of(first.getPayload(), second.getPayload())), anyList());
+
+        assertThat(firstAttempt.getIndex(), is(0));
+        assertThat(secondAttempt.getIndex(), is(0));
+    }
+
+    @Test
+    @DisplayName("Given a skipped record ahead of a failure, when consumed, then the failure is reported at its batch position")
+    void givenSkippedRecordAheadOfFailure_whenConsumed_thenFailureReportedAtBatchPosition() {
+        Message<filing> first = withOffset(buildFilingUpdateMessage(), 10L);
+        Message<filing> second = withOffset(buildFilingDeleteMessageWithoutIsDelete(), 11L);
+        Message<filing> third = withOffset(buildFilingUpdateMessage(), 12L);
+
+        RetryableException cause = new RetryableException("test exception", new RuntimeException());
+        doThrow(new BatchProcessingException(1, cause, Set.of(2)))
+                .doThrow(new BatchProcessingException(0, cause))
+                .when(processor).processMessages(anyList(), anyList());
+
+        assertThrows(BatchListenerFailedException.class, () -> underTest.consume(List.of(first, second, third)));
+
+        // The container commits the first record and replays from the failed one.
+        BatchListenerFailedException expectedException = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(third, withOffset(buildFilingUpdateMessage(), 13L)));
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+    }
+
+    @Test
+    @DisplayName("Given a record that failed to de-serialise, when consumed, then the record is reported")
+    @SuppressWarnings("unchecked")
+    void givenUndeserialisableRecord_whenConsumed_thenFailedRecordReported() {
+        Message<filing> first = buildFilingUpdateMessage();
+        Message<?> second = MessageBuilder.withPayload(KafkaNull.INSTANCE).build();
+
+        BatchListenerFailedException expectedException = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of(first, (Message<filing>) second));
+        });
+
+        // The record ahead of the failure is committed by the container, so it must have been processed.
+        verify(processor, times(1)).processMessages(eq(List.of(first.getPayload())), anyList());
+        verify(logger, times(1)).debug(eq("Processed kafka message"), any(Map.class));
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(expectedException.getCause(), is(instanceOf(NonRetryableException.class)));
+    }
+
+    @Test
+    @DisplayName("Given a record the deserializer rejected, when consumed, then the deserializer's exception is the cause")
+    @SuppressWarnings("unchecked")
+    void givenDeserializerException_whenConsumed_thenOriginalExceptionIsCause() {
+        NonRetryableErrorException deserializerFailure = new NonRetryableErrorException("De-Serialization exception",
+                new RuntimeException());
+        DeserializationException deserializationException = new DeserializationException("failed", new byte[0],
+                false, deserializerFailure);
+
+        Message<?> first = MessageBuilder.withPayload(KafkaNull.INSTANCE)
+                .setHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new DeserializationExceptionHeader(
+                        SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER,
+                        SerializationUtils.exceptionToByteArray(deserializationException)))
+                .build();
+
+        BatchListenerFailedException expectedException = assertThrows(BatchListenerFailedException.class, () -> {
+            underTest.consume(List.of((Message<filing>) first));
+        });
+
+        verifyNoInteractions(processor);
+
+        assertThat(expectedException.getIndex(), is(0));
+        assertThat(expectedException.getCause(), is(instanceOf(DeserializationException.class)));
+        assertThat(expectedException.getCause().getCause(), is(instanceOf(NonRetryableErrorException.class)));
+    }
+
+    private static Message<filing> withOffset(final Message<filing> message, final long offset) {
+        return MessageBuilder.fromMessage(message)
+                .setHeader(KafkaHeaders.RECEIVED_TOPIC, "test-topic")
+                .setHeader(KafkaHeaders.RECEIVED_PARTITION, 0)
+                .setHeader(KafkaHeaders.OFFSET, offset)
+                .build();
+    }
+
+    private static Message<filing> withCorrelationId(final Message<filing> message, final String correlationId) {
+        return MessageBuilder.fromMessage(message)
+                .setHeader(KafkaHeaders.CORRELATION_ID, correlationId)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationMatchCommitCallbackTest {
+
+    @Mock
+    Logger logger;
+
+    @Mock
+    CompletedRecords completedRecords;
+
+    SimpleMeterRegistry registry;
+
+    NotificationMatchCommitCallback underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        underTest = new NotificationMatchCommitCallback(registry, completedRecords, logger);
+    }
+
+    @Test
+    void givenCommitSucceeded_whenCompleted_thenSuccessCounted() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(new TopicPartition("test-topic", 0), new OffsetAndMetadata(10L));
+
+        underTest.onComplete(offsets, null);
+        underTest.onComplete(offsets, null);
+
+        assertThat(registry.get(NotificationMatchCommitCallback.COMMITS_METRIC).tag("result", "success").counter().count(), is(2.0));
+        assertThat(registry.get(NotificationMatchCommitCallback.COMMITS_METRIC).tag("result", "failure").counter().count(), is(0.0));
+        verify(completedRecords, times(2)).committed(offsets);
+    }
+
+    @Test
+    void givenCommitFailed_whenCompleted_thenFailureCountedAndLogged() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = Map.of(new TopicPartition("test-topic", 0), new OffsetAndMetadata(10L));
+        TimeoutException exception = new TimeoutException("Commit timed out");
+
+        underTest.onComplete(offsets, exception);
+
+        assertThat(registry.get(NotificationMatchCommitCallback.COMMITS_METRIC).tag("result", "failure").counter().count(), is(1.0));
+        verify(logger, times(1)).error("Offset commit failed, offsets will be committed by the next commit: %s".formatted(offsets), exception);
+        verify(completedRecords, never()).committed(offsets);
+    }
+}
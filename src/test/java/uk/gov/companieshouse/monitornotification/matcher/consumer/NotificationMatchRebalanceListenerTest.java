@@ -0,0 +1,109 @@
+package uk.gov.companieshouse.monitornotification.matcher.consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.logging.Logger;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationMatchRebalanceListenerTest {
+
+    @Mock
+    Logger logger;
+
+    @Mock
+    Consumer<String, Object> consumer;
+
+    @Mock
+    CompletedRecords completedRecords;
+
+    NotificationMatchRebalanceListener underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new NotificationMatchRebalanceListener(completedRecords, logger);
+    }
+
+    @Test
+    void givenPartitionsRevoked_whenRebalanced_thenRevocationLogged() {
+        List<TopicPartition> partitions = List.of(new TopicPartition("test-topic", 0));
+
+        underTest.onPartitionsRevokedBeforeCommit(consumer, partitions);
+
+        verify(logger, times(1)).info("Partitions revoked, committing processed offsets: %s".formatted(partitions));
+        verifyNoInteractions(consumer);
+    }
+
+    @Test
+    void givenNoPartitionsRevoked_whenCooperativeRebalance_thenNothingLogged() {
+        underTest.onPartitionsRevokedBeforeCommit(consumer, List.of());
+
+        verify(logger, never()).info(anyString());
+    }
+
+    @Test
+    void givenPartitionsLost_whenRebalanced_thenErrorLogged() {
+        List<TopicPartition> partitions = List.of(new TopicPartition("test-topic", 1));
+
+        underTest.onPartitionsLost(consumer, partitions);
+
+        verify(logger, times(1)).error(
+                "Partitions lost without being revoked, uncommitted records will be processed again: %s".formatted(partitions));
+        verify(completedRecords, times(1)).forget(partitions);
+        verifyNoInteractions(consumer);
+    }
+
+    @Test
+    void givenPartitionsAssigned_whenRebalanced_thenAssignmentLogged() {
+        List<TopicPartition> partitions = List.of(new TopicPartition("test-topic", 2));
+
+        underTest.onPartitionsAssigned(consumer, partitions);
+
+        verify(logger, times(1)).info("Partitions assigned: %s".formatted(partitions));
+    }
+
+    @Test
+    void givenPartitionsRevoked_whenContainerCommitted_thenPendingCommitsAwaited() {
+        List<TopicPartition> partitions = List.of(new TopicPartition("test-topic", 0));
+
+        underTest.onPartitionsRevokedAfterCommit(consumer, partitions);
+
+        verify(consumer, times(1)).commitSync(Collections.emptyMap());
+        verify(completedRecords, times(1)).forget(partitions);
+    }
+
+    @Test
+    void givenNoPartitionsRevoked_whenContainerCommitted_thenNoCommitMade() {
+        underTest.onPartitionsRevokedAfterCommit(consumer, List.of());
+
+        verifyNoInteractions(consumer);
+        verifyNoInteractions(completedRecords);
+    }
+
+    @Test
+    void givenCommitFails_whenContainerCommitted_thenErrorLogged() {
+        List<TopicPartition> partitions = List.of(new TopicPartition("test-topic", 0));
+        CommitFailedException exception = new CommitFailedException();
+        doThrow(exception).when(consumer).commitSync(anyMap());
+
+        underTest.onPartitionsRevokedAfterCommit(consumer, partitions);
+
+        verify(logger, times(1)).error("Unable to confirm offsets committed for revoked partitions: %s".formatted(partitions), exception);
+    }
+}
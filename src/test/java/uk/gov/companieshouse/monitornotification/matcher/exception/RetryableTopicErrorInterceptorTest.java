@@ -4,6 +4,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.kafka.support.KafkaHeaders.EXCEPTION_CAUSE_FQCN;
 import static org.springframework.kafka.support.KafkaHeaders.EXCEPTION_STACKTRACE;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.Message;
+import uk.gov.companieshouse.monitornotification.matcher.serdes.NotificationMatchDeserializer;
 
 @ExtendWith(MockitoExtension.class)
 public class RetryableTopicErrorInterceptorTest {
@@ -175,5 +177,50 @@ public class RetryableTopicErrorInterceptorTest {
 
         assertThat(onSendRecord, is(result));
     }
-}
 
+    @Test
+    void givenOriginalValueHeader_whenOnSend_thenOriginalBytesSentWithoutHeader() throws IOException {
+        underTest.configure(Map.of());
+
+        Message<filing> filingMessage = buildFilingUpdateMessage();
+        byte[] original = new byte[] {1, 2, 3};
+
+        List<Header> headers = List.of(
+                new RecordHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER, original),
+                new RecordHeader(EXCEPTION_STACKTRACE, NonRetryableException.class.getName().getBytes())
+        );
+
+        ProducerRecord<String, Object> onSendRecord = new ProducerRecord<>("test-topic-dlt-error", 1,
+                System.currentTimeMillis(),"test-key", filingMessage.getPayload(), headers);
+
+        ProducerRecord<String, Object> result = underTest.onSend(onSendRecord);
+
+        assertThat(result.topic(), is("test-topic-dlt-error"));
+        assertThat(result.partition(), is(1));
+        assertThat(result.key(), is("test-key"));
+        assertThat(result.value(), is(original));
+        assertThat(result.headers().lastHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER), is(nullValue()));
+        assertThat(result.headers().lastHeader(EXCEPTION_STACKTRACE), is(notNullValue()));
+    }
+
+    @Test
+    void givenOriginalValueHeaderAndNonRetryableError_whenOnSend_thenOriginalBytesSentToInvalidTopic() throws IOException {
+        underTest.configure(Map.of());
+
+        Message<filing> filingMessage = buildFilingUpdateMessage();
+        byte[] original = new byte[] {1, 2, 3};
+
+        List<Header> headers = List.of(
+                new RecordHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER, original),
+                new RecordHeader(EXCEPTION_CAUSE_FQCN, NonRetryableErrorException.class.getName().getBytes())
+        );
+
+        ProducerRecord<String, Object> onSendRecord = new ProducerRecord<>("test-topic-dlt-error", 1,
+                System.currentTimeMillis(),"test-key", filingMessage.getPayload(), headers);
+
+        ProducerRecord<String, Object> result = underTest.onSend(onSendRecord);
+
+        assertThat(result.topic(), is("test-topic-invalid"));
+        assertThat(result.value(), is(original));
+    }
+}
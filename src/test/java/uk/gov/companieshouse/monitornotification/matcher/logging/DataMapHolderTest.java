@@ -3,6 +3,7 @@ package uk.gov.companieshouse.monitornotification.matcher.logging;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import uk.gov.companieshouse.logging.util.DataMap;
@@ -42,4 +43,36 @@ class DataMapHolderTest {
         var logMap = DataMapHolder.getLogMap();
         assertTrue(logMap.containsKey("request_id"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void propagateRunnableToAnotherThread() {
+        DataMapHolder.initialise("requestId");
+        String[] result = new String[1];
+
+        CompletableFuture.runAsync(DataMapHolder.propagate(() -> {
+            result[0] = DataMapHolder.getRequestId();
+        })).join();
+
+        assertEquals("requestId", result[0]);
+    }
+
+    @Test
+    void propagateSupplierToAnotherThread() {
+        DataMapHolder.initialise("requestId");
+
+        String result = CompletableFuture.supplyAsync(DataMapHolder.propagate(DataMapHolder::getRequestId)).join();
+
+        assertEquals("requestId", result);
+    }
+
+    @Test
+    void propagateRestoresRunningThreadContext() {
+        DataMapHolder.initialise("otherRequestId");
+        Runnable task = DataMapHolder.propagate(() -> assertEquals("otherRequestId", DataMapHolder.getRequestId()));
+
+        DataMapHolder.initialise("requestId");
+        task.run();
+
+        assertEquals("requestId", DataMapHolder.getRequestId());
+    }
+}
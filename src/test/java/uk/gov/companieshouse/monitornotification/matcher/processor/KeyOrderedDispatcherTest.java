@@ -0,0 +1,226 @@
+package uk.gov.companieshouse.monitornotification.matcher.processor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.NotificationMatchConsumerProperties;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.ProcessingMode;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
+import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+
+@ExtendWith(MockitoExtension.class)
+class KeyOrderedDispatcherTest {
+
+    private static final Function<String, String> KEY = item -> item.substring(0, 1);
+
+    @Mock
+    Logger logger;
+
+    KeyOrderedDispatcher underTest;
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Test
+    void givenSequentialMode_whenDispatched_thenItemsProcessedInOrder() {
+        underTest = buildDispatcher(ProcessingMode.SEQUENTIAL);
+        List<String> processed = new ArrayList<>();
+
+        underTest.dispatch(List.of("A1", "B1", "A2"), KEY, processed::add);
+
+        assertThat(processed, contains("A1", "B1", "A2"));
+    }
+
+    @Test
+    void givenSequentialMode_whenItemFails_thenFailedIndexReportedAndRemainderSkipped() {
+        underTest = buildDispatcher(ProcessingMode.SEQUENTIAL);
+        List<String> processed = new ArrayList<>();
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.dispatch(List.of("A1", "B1", "A2"), KEY, item -> {
+                if (item.equals("B1")) {
+                    throw new IllegalStateException("test exception");
+                }
+                processed.add(item);
+            });
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(processed, contains("A1"));
+        assertThat(expectedException.getCompletedAfter().isEmpty(), is(true));
+    }
+
+    @Test
+    void givenKeyOrderedMode_whenDispatched_thenItemsProcessedInOrderPerKey() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        underTest.dispatch(List.of("A1", "B1", "A2", "C1", "B2", "A3"), KEY, processed::add);
+
+        assertThat(processed, containsInAnyOrder("A1", "B1", "A2", "C1", "B2", "A3"));
+        assertThat(processed.stream().filter(item -> item.startsWith("A")).toList(), contains("A1", "A2", "A3"));
+        assertThat(processed.stream().filter(item -> item.startsWith("B")).toList(), contains("B1", "B2"));
+    }
+
+    @Test
+    void givenKeyOrderedMode_whenDispatched_thenKeysProcessedInParallel() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED);
+        CountDownLatch latch = new CountDownLatch(2);
+
+        // Each item waits for the other, which can only happen if both keys are in flight together.
+        underTest.dispatch(List.of("A1", "B1"), KEY, item -> {
+            latch.countDown();
+            try {
+                if (!latch.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Keys were not processed in parallel");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertThat(latch.getCount(), is(0L));
+    }
+
+    @Test
+    void givenKeyOrderedMode_whenItemFails_thenLowestFailedIndexReportedAndLaneStopped() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.dispatch(List.of("A1", "B1", "A2", "B2", "A3", "C1"), KEY, item -> {
+                if (item.equals("A2") || item.equals("C1")) {
+                    throw new IllegalStateException("test exception");
+                }
+                processed.add(item);
+            });
+        });
+
+        assertThat(expectedException.getIndex(), is(2));
+        assertThat(processed, containsInAnyOrder("A1", "B1", "B2"));
+        assertThat(expectedException.getCompletedAfter(), containsInAnyOrder(3));
+    }
+
+    @Test
+    void givenKeyOrderedMode_whenItemRaisesError_thenFailedIndexReported() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED);
+        AssertionError error = new AssertionError("test error");
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.dispatch(List.of("A1", "B1"), KEY, item -> {
+                if (item.equals("B1")) {
+                    throw error;
+                }
+            });
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(expectedException.getCause(), is(sameInstance(error)));
+    }
+
+    @Test
+    void givenKeyOrderedMode_whenItemFailsWithWrappedCheckedException_thenCauseReportedAtIndex() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED);
+        IOException failure = new IOException("test exception");
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.dispatch(List.of("A1", "B1"), KEY, item -> {
+                if (item.equals("A1")) {
+                    throw new CompletionException(failure);
+                }
+            });
+        });
+
+        assertThat(expectedException.getIndex(), is(0));
+        assertThat(expectedException.getCause(), is(sameInstance(failure)));
+    }
+
+    @Test
+    void givenSequentialMode_whenItemRaisesError_thenFailedIndexReported() {
+        underTest = buildDispatcher(ProcessingMode.SEQUENTIAL);
+        AssertionError error = new AssertionError("test error");
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.dispatch(List.of("A1", "B1"), KEY, item -> {
+                if (item.equals("B1")) {
+                    throw error;
+                }
+            });
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(expectedException.getCause(), is(sameInstance(error)));
+    }
+
+    @Test
+    void givenVirtualThreads_whenDispatched_thenItemsProcessedOnVirtualThreadsWithRequestContext() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED, true);
+        List<Boolean> virtual = Collections.synchronizedList(new ArrayList<>());
+        List<String> requestIds = Collections.synchronizedList(new ArrayList<>());
+
+        DataMapHolder.initialise("batch-request-id");
+        underTest.dispatch(List.of("A1", "B1"), KEY, item -> {
+            virtual.add(Thread.currentThread().isVirtual());
+            requestIds.add(DataMapHolder.getRequestId());
+        });
+
+        assertThat(virtual, contains(true, true));
+        assertThat(requestIds, contains("batch-request-id", "batch-request-id"));
+    }
+
+    @Test
+    void givenVirtualThreads_whenMoreKeysThanMaxInFlight_thenAllKeysProcessedInParallel() {
+        underTest = buildDispatcher(ProcessingMode.KEY_ORDERED, true);
+        List<String> items = List.of("A1", "B1", "C1", "D1", "E1", "F1");
+        CountDownLatch latch = new CountDownLatch(items.size());
+
+        // Every item waits for all the others, beyond the four that would be in flight on platform threads.
+        underTest.dispatch(items, KEY, item -> {
+            latch.countDown();
+            try {
+                if (!latch.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Keys were not all processed in parallel");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertThat(latch.getCount(), is(0L));
+    }
+
+    private KeyOrderedDispatcher buildDispatcher(final ProcessingMode mode) {
+        return buildDispatcher(mode, false);
+    }
+
+    private KeyOrderedDispatcher buildDispatcher(final ProcessingMode mode, final boolean virtualThreads) {
+        NotificationMatchConsumerProperties properties = new NotificationMatchConsumerProperties();
+        properties.setProcessingMode(mode);
+        properties.setMaxInFlight(4);
+        properties.setVirtualThreads(virtualThreads);
+
+        return new KeyOrderedDispatcher(properties, logger);
+    }
+}
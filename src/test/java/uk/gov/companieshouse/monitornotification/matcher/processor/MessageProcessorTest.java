@@ -1,6 +1,7 @@
 package uk.gov.companieshouse.monitornotification.matcher.processor;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -14,6 +15,7 @@ import static org.mockito.Mockito.when;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NAME;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_STATUS;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildCompanyDetails;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithBlankCompanyNumber;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutCompanyNumber;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutIsDelete;
@@ -23,13 +25,18 @@ import static uk.gov.companieshouse.monitornotification.matcher.utils.Notificati
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import monitor.filing;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.Message;
@@ -39,7 +46,10 @@ import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.monitornotification.matcher.config.properties.ExternalLinksProperties;
 import uk.gov.companieshouse.monitornotification.matcher.config.properties.FilingHistoryDescriptions;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.NotificationMatchConsumerProperties;
+import uk.gov.companieshouse.monitornotification.matcher.exception.BatchProcessingException;
 import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
 import uk.gov.companieshouse.monitornotification.matcher.filing.FilingHistoryDescriptionConverter;
 import uk.gov.companieshouse.monitornotification.matcher.service.CompanyService;
 import uk.gov.companieshouse.monitornotification.matcher.service.EmailService;
@@ -62,6 +72,7 @@ public class MessageProcessorTest {
     ExternalLinksProperties properties;
     FilingHistoryDescriptionConverter converter;
     NotificationMatchDataExtractor extractor;
+    KeyOrderedDispatcher dispatcher;
 
     MessageProcessor underTest;
 
@@ -79,8 +90,9 @@ public class MessageProcessorTest {
         ));
         converter = new FilingHistoryDescriptionConverter(descriptions, logger);
         extractor = new NotificationMatchDataExtractor(mapper, logger);
+        dispatcher = new KeyOrderedDispatcher(new NotificationMatchConsumerProperties(), logger);
 
-        underTest = new MessageProcessor(emailService, companyService, logger, properties, converter, extractor);
+        underTest = new MessageProcessor(emailService, companyService, logger, properties, converter, extractor, dispatcher);
     }
 
     @Test
@@ -116,14 +128,28 @@ public class MessageProcessorTest {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        when(companyService.findCompanyDetails(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
         underTest.processMessage(payload);
 
-        verify(logger, times(4)).trace(anyString());
+        verify(logger, times(10)).trace(anyString());
         verify(logger, times(1)).info("No company details were found with company number: [%s]. Processing aborted!".formatted(COMPANY_NUMBER));
-        verify(logger, times(0)).debug(anyString());
-        verify(companyService, times(1)).findCompanyDetails(COMPANY_NUMBER);
+        verify(logger, times(1)).debug(anyString());
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void givenCompanyNotExists_whenFilingDataIncomplete_thenProcessingTerminated() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData(payload.getData().replace("\"type\": \"AP01\",", ""));
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        underTest.processMessage(payload);
+
+        verify(logger, times(1)).info("No company details were found with company number: [%s]. Processing aborted!".formatted(COMPANY_NUMBER));
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
         verifyNoInteractions(emailService);
     }
 
@@ -137,17 +163,17 @@ public class MessageProcessorTest {
         companyDetails.setCompanyName(COMPANY_NAME);
         companyDetails.setCompanyStatus(COMPANY_STATUS);
 
-        when(companyService.findCompanyDetails(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.of(companyDetails)));
         doNothing().when(emailService).saveMatch(any(MessageSend.class));
         when(emailService.sendEmail(any(MessageSend.class))).thenReturn(new ApiResponse<>(201, Map.of(), null));
 
         underTest.processMessage(payload);
 
-        verify(logger, times(27)).trace(anyString());
+        verify(logger, times(12)).trace(anyString());
         verify(logger, times(1)).info(anyString());
         verify(logger, times(2)).debug(anyString());
 
-        verify(companyService, times(1)).findCompanyDetails(COMPANY_NUMBER);
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
         verify(emailService, times(1)).saveMatch(any(MessageSend.class));
         verify(emailService, times(1)).sendEmail(any(MessageSend.class));
     }
@@ -164,7 +190,7 @@ public class MessageProcessorTest {
         });
 
         assertThat(expectedException, is(notNullValue()));
-        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the JsonNode: data"));
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
         assertThat(expectedException.getCause().getClass(), is(JsonParseException.class));
     }
 
@@ -178,15 +204,15 @@ public class MessageProcessorTest {
         companyDetails.setCompanyName(COMPANY_NAME);
         companyDetails.setCompanyStatus(COMPANY_STATUS);
 
-        when(companyService.findCompanyDetails(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.of(companyDetails)));
         doNothing().when(emailService).saveMatch(any(MessageSend.class));
         when(emailService.sendEmail(any(MessageSend.class))).thenReturn(new ApiResponse<>(201, Map.of(), null));
 
         underTest.processMessage(payload);
 
-        verify(logger, times(26)).trace(anyString());
+        verify(logger, times(11)).trace(anyString());
         verify(logger, times(1)).debug(anyString());
-        verify(companyService, times(1)).findCompanyDetails(COMPANY_NUMBER);
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
         verify(emailService, times(1)).saveMatch(any(MessageSend.class));
         verify(emailService, times(1)).sendEmail(any(MessageSend.class));
     }
@@ -202,17 +228,106 @@ public class MessageProcessorTest {
         companyDetails.setCompanyName(COMPANY_NAME);
         companyDetails.setCompanyStatus(COMPANY_STATUS);
 
-        when(companyService.findCompanyDetails(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.of(companyDetails)));
         doNothing().when(emailService).saveMatch(any(MessageSend.class));
         when(emailService.sendEmail(any(MessageSend.class))).thenReturn(new ApiResponse<>(201, Map.of(), null));
 
         underTest.processMessage(payload);
 
-        verify(logger, times(27)).trace(anyString());
+        verify(logger, times(12)).trace(anyString());
         verify(logger, times(1)).debug(anyString());
-        verify(companyService, times(1)).findCompanyDetails(COMPANY_NUMBER);
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
         verify(emailService, times(1)).saveMatch(any(MessageSend.class));
         verify(emailService, times(1)).sendEmail(any(MessageSend.class));
     }
 
+    @Test
+    void givenCompanyLookupTimesOut_whenMessageProcessed_thenRetryableExceptionRaised() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        RetryableException expectedException = assertThrows(RetryableException.class, () -> {
+            underTest.processMessage(payload);
+        });
+
+        assertThat(expectedException.getMessage(), is("Timed out looking up company details for: %s".formatted(COMPANY_NUMBER)));
+        assertThat(expectedException.getCause().getClass(), is(TimeoutException.class));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void givenCompanyLookupRejected_whenMessageProcessed_thenRetryableExceptionRaised() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        RetryableException expectedException = assertThrows(RetryableException.class, () -> {
+            underTest.processMessage(payload);
+        });
+
+        assertThat(expectedException.getMessage(), is("Unable to start looking up company details for: %s".formatted(COMPANY_NUMBER)));
+        assertThat(expectedException.getCause().getClass(), is(RejectedExecutionException.class));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void givenCompanyLookupFails_whenMessageProcessed_thenExceptionRethrown() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        NonRetryableException lookupException = new NonRetryableException("Unauthorized");
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.failedFuture(lookupException));
+
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
+            underTest.processMessage(payload);
+        });
+
+        assertThat(expectedException, is(lookupException));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void givenBatchOfValidPayloads_whenMessagesProcessed_thenEveryMessageSent() {
+        filing first = buildFilingUpdateMessage().getPayload();
+        filing second = buildFilingDeleteMessageWithoutIsDelete().getPayload();
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.of(buildCompanyDetails())));
+        doNothing().when(emailService).saveMatch(any(MessageSend.class));
+        when(emailService.sendEmail(any(MessageSend.class))).thenReturn(new ApiResponse<>(201, Map.of(), null));
+
+        underTest.processMessages(List.of(first, second), List.of("first-request-id", "second-request-id"));
+
+        verify(companyService, times(2)).findCompanyDetailsAsync(COMPANY_NUMBER);
+        verify(emailService, times(2)).saveMatch(any(MessageSend.class));
+
+        ArgumentCaptor<MessageSend> sent = ArgumentCaptor.forClass(MessageSend.class);
+        verify(emailService, times(2)).sendEmail(sent.capture());
+
+        assertThat(sent.getAllValues().stream().map(MessageSend::getMessageId).toList(),
+                containsInAnyOrder("first-request-id", "second-request-id"));
+    }
+
+    @Test
+    void givenBatchWithInvalidPayload_whenMessagesProcessed_thenFailedIndexReported() {
+        filing first = buildFilingUpdateMessage().getPayload();
+        filing second = buildFilingUpdateMessage().getPayload();
+        filing third = buildFilingUpdateMessage().getPayload();
+
+        second.setData("!nvalid json");
+
+        when(companyService.findCompanyDetailsAsync(COMPANY_NUMBER)).thenReturn(CompletableFuture.completedFuture(Optional.of(buildCompanyDetails())));
+        doNothing().when(emailService).saveMatch(any(MessageSend.class));
+        when(emailService.sendEmail(any(MessageSend.class))).thenReturn(new ApiResponse<>(201, Map.of(), null));
+
+        BatchProcessingException expectedException = assertThrows(BatchProcessingException.class, () -> {
+            underTest.processMessages(List.of(first, second, third), List.of("first", "second", "third"));
+        });
+
+        assertThat(expectedException.getIndex(), is(1));
+        assertThat(expectedException.getCause().getClass(), is(NonRetryableException.class));
+
+        verify(companyService, times(1)).findCompanyDetailsAsync(COMPANY_NUMBER);
+        verify(emailService, times(1)).sendEmail(any(MessageSend.class));
+    }
 }
@@ -3,14 +3,20 @@ package uk.gov.companieshouse.monitornotification.matcher.serdes;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
 
 import consumer.exception.NonRetryableErrorException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import monitor.filing;
+import org.apache.avro.Schema;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,11 +25,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 class GenericSerializerTest {
 
+    SimpleMeterRegistry registry;
+
     GenericSerializer underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new GenericSerializer();
+        registry = new SimpleMeterRegistry();
+        underTest = new GenericSerializer(registry);
     }
 
     @Test
@@ -74,5 +83,74 @@ class GenericSerializerTest {
         assertThat(expectedException, is(notNullValue()));
         assertThat(expectedException.getMessage(), is("Serialization exception while writing to byte array"));
     }
-}
 
+    @Test
+    void givenFilingPayload_whenSerializedRepeatedly_thenSameBytesInNewArray() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        byte[] first = underTest.serialize("test-topic", payload);
+        byte[] second = underTest.serialize("test-topic", payload);
+
+        assertThat(second, is(first));
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    void givenFilingPayload_whenSerialized_thenDeserializedToSameRecord() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        byte[] result = underTest.serialize("test-topic", payload);
+
+        assertThat(new NotificationMatchDeserializer().deserialize("test-topic", result), is(payload));
+    }
+
+    @Test
+    void givenOversizedPayload_whenSerialized_thenFollowingPayloadUnaffected() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        filing oversized = buildFilingUpdateMessage().getPayload();
+        oversized.setData("x".repeat(GenericSerializer.MAX_RETAINED_BUFFER_SIZE + 1));
+
+        byte[] expected = underTest.serialize("test-topic", payload);
+        byte[] large = underTest.serialize("test-topic", oversized);
+        byte[] result = underTest.serialize("test-topic", payload);
+
+        assertThat(large.length, is(greaterThan(GenericSerializer.MAX_RETAINED_BUFFER_SIZE)));
+        assertThat(result, is(expected));
+    }
+
+    @Test
+    void givenFilingPayload_whenSerialized_thenMetricsRecorded() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        byte[] first = underTest.serialize("test-topic-retry", payload);
+        underTest.serialize("test-topic-retry", payload);
+
+        DistributionSummary bytes = registry.get(GenericSerializer.SERIALIZED_BYTES_METRIC).tag("topic", "test-topic-retry").summary();
+        Timer time = registry.get(GenericSerializer.SERIALIZE_TIME_METRIC).tag("topic", "test-topic-retry").timer();
+
+        assertThat(bytes.count(), is(2L));
+        assertThat(bytes.totalAmount(), is(2.0 * first.length));
+        assertThat(time.count(), is(2L));
+    }
+
+    @Test
+    void givenWriteFailedPartway_whenNextPayloadSerialized_thenBytesRoundTrip() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        byte[] expected = underTest.serialize("test-topic", payload);
+
+        // Leaving the last required field unset fails the write after the earlier fields have been encoded.
+        filing broken = buildFilingUpdateMessage().getPayload();
+        Schema.Field lastRequired = filing.getClassSchema().getFields().stream()
+                .filter(field -> !field.schema().isNullable())
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        broken.put(lastRequired.pos(), null);
+
+        assertThrows(NonRetryableErrorException.class, () -> underTest.serialize("test-topic", broken));
+
+        byte[] result = underTest.serialize("test-topic", payload);
+
+        assertThat(result, is(expected));
+        assertThat(new NotificationMatchDeserializer().deserialize("test-topic", result), is(payload));
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.companieshouse.monitornotification.matcher.serdes;
+
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingRawAvroMessage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import monitor.filing;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.reflect.ReflectDatumReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding a record with a reader and decoder built for every record, as the deserializer used to,
+ * against the deserializer's reader and decoder kept per thread. Both read the same projection schema and
+ * neither logs, so only the reuse differs. Run with the GC profiler (as the benchmark profile does) to see
+ * the allocation per record alongside the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationMatchDeserializerBenchmark {
+
+    private byte[] record;
+
+    @Setup
+    public void setUp() {
+        record = buildFilingRawAvroMessage();
+    }
+
+    @Benchmark
+    public filing newReaderPerRecord() throws IOException {
+        ReflectDatumReader<filing> reader = new ReflectDatumReader<>(NotificationMatchDeserializer.WRITER_SCHEMA,
+                NotificationMatchDeserializer.PROJECTION_SCHEMA);
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(record, null);
+        return reader.read(null, decoder);
+    }
+
+    @Benchmark
+    public filing reusedReaderPerThread() throws IOException {
+        return NotificationMatchDeserializer.read(record);
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.monitornotification.matcher.serdes;
+
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import monitor.filing;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.utils.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares decoding a record by first copying it out of the fetch buffer into a new byte array, as the
+ * default {@code Deserializer} implementation does, against decoding it from the buffer in place. Each
+ * record is a slice in the middle of a larger fetch buffer, on or off the heap, and its payload is padded
+ * to the given size so the cost of the copy can be seen as records grow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationMatchDeserializerByteBufferBenchmark {
+
+    private static final String TOPIC = "monitor-notification-match";
+    private static final int FETCH_PADDING = 64 * 1024;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    @Param({"512", "16384"})
+    public int payloadBytes;
+
+    private final RecordHeaders headers = new RecordHeaders();
+    private NotificationMatchDeserializer deserializer;
+    private ByteBuffer record;
+
+    @Setup
+    public void setUp() {
+        deserializer = new NotificationMatchDeserializer();
+
+        filing payload = buildFilingUpdateMessage().getPayload();
+        String data = payload.getData();
+        if (data.length() < payloadBytes) {
+            payload.setData(data.substring(0, data.lastIndexOf('}'))
+                    + ", \"padding\": \"" + "x".repeat(payloadBytes - data.length()) + "\"}");
+        }
+        byte[] bytes = new GenericSerializer().serialize(TOPIC, payload);
+
+        ByteBuffer fetch = direct
+                ? ByteBuffer.allocateDirect(bytes.length + 2 * FETCH_PADDING)
+                : ByteBuffer.allocate(bytes.length + 2 * FETCH_PADDING);
+        fetch.position(FETCH_PADDING);
+        fetch.put(bytes);
+        fetch.position(FETCH_PADDING).limit(FETCH_PADDING + bytes.length);
+        record = fetch.slice();
+    }
+
+    @Benchmark
+    public filing copiedToArray() {
+        return deserializer.deserialize(TOPIC, headers, Utils.toArray(record.duplicate()));
+    }
+
+    @Benchmark
+    public filing decodedInPlace() {
+        return deserializer.deserialize(TOPIC, headers, record.duplicate());
+    }
+}
@@ -2,7 +2,10 @@ package uk.gov.companieshouse.monitornotification.matcher.serdes;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.KIND;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.NOTIFIED_AT;
@@ -10,12 +13,23 @@ import static uk.gov.companieshouse.monitornotification.matcher.utils.Notificati
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingRawAvroMessage;
 
 import consumer.exception.NonRetryableErrorException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import monitor.filing;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaCompatibility;
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableTopicErrorInterceptor;
 
 @ExtendWith(MockitoExtension.class)
 public class NotificationMatchDeserializerTest {
@@ -51,4 +65,161 @@ public class NotificationMatchDeserializerTest {
         assertThat(expectedException, is(notNullValue()));
         assertThat(expectedException.getMessage(), is("De-Serialization exception while converting to Avro schema object"));
     }
+
+    @Test
+    public void givenValidPayloads_whenDeserializedRepeatedly_thenNewRecordReturnedEachTime() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        filing first = underTest.deserialize("test-topic", payload);
+        filing second = underTest.deserialize("test-topic", payload);
+
+        assertThat(second, is(first));
+        assertThat(second, is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void givenInvalidPayload_whenFollowedByValidPayload_thenSuccessReturned() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        assertThrows(NonRetryableErrorException.class, () -> {
+            underTest.deserialize("test-topic", "This string won't deserialize".getBytes(StandardCharsets.UTF_8));
+        });
+
+        filing result = underTest.deserialize("test-topic", payload);
+
+        assertThat(result.getUserId(), is(USER_ID));
+    }
+
+    @Test
+    public void givenValidPayload_whenDeserializedOnAnotherThread_thenSuccessReturned() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        filing local = underTest.deserialize("test-topic", payload);
+        filing remote = CompletableFuture.supplyAsync(() -> underTest.deserialize("test-topic", payload)).join();
+
+        assertThat(remote, is(local));
+    }
+
+    @Test
+    public void givenHeapBufferWithinLargerArray_whenDeserialized_thenOnlyRecordBytesDecoded() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        // Surround the record with other bytes, as it would be within a fetch buffer.
+        byte[] fetched = new byte[payload.length + 32];
+        System.arraycopy(payload, 0, fetched, 16, payload.length);
+        ByteBuffer buffer = ByteBuffer.wrap(fetched, 16, payload.length).slice();
+
+        filing result = underTest.deserialize("test-topic", new RecordHeaders(), buffer);
+
+        assertThat(result, is(underTest.deserialize("test-topic", payload)));
+        assertThat(buffer.remaining(), is(payload.length));
+    }
+
+    @Test
+    public void givenDirectBuffer_whenDeserialized_thenSuccessReturned() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length);
+        buffer.put(payload).flip();
+
+        filing result = underTest.deserialize("test-topic", new RecordHeaders(), buffer);
+
+        assertThat(result.getUserId(), is(USER_ID));
+        assertThat(result.getKind(), is(KIND));
+        assertThat(buffer.position(), is(0));
+        assertThat(buffer.remaining(), is(payload.length));
+    }
+
+    @Test
+    public void givenInvalidBuffer_whenDeserialized_thenExceptionRaised() {
+        ByteBuffer buffer = ByteBuffer.wrap("This string won't deserialize".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(NonRetryableErrorException.class, () -> {
+            underTest.deserialize("test-topic", new RecordHeaders(), buffer);
+        });
+    }
+
+    @Test
+    public void givenNullBuffer_whenDeserialized_thenNullReturned() {
+        filing result = underTest.deserialize("test-topic", new RecordHeaders(), (ByteBuffer) null);
+
+        assertThat(result, is(nullValue()));
+    }
+
+    @Test
+    public void givenValidPayload_whenDeserializedWithHeaders_thenOriginalBytesKeptInHeader() {
+        byte[] payload = buildFilingRawAvroMessage();
+        Headers headers = new RecordHeaders();
+
+        underTest.deserialize("test-topic", headers, payload);
+
+        assertThat(headers.lastHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER).value(), is(payload));
+    }
+
+    @Test
+    public void givenHeapBufferWithinLargerArray_whenDeserialized_thenOnlyRecordBytesKeptInHeader() {
+        byte[] payload = buildFilingRawAvroMessage();
+
+        byte[] fetched = new byte[payload.length + 32];
+        System.arraycopy(payload, 0, fetched, 16, payload.length);
+        ByteBuffer buffer = ByteBuffer.wrap(fetched, 16, payload.length).slice();
+        Headers headers = new RecordHeaders();
+
+        underTest.deserialize("test-topic", headers, buffer);
+
+        assertThat(headers.lastHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER).value(), is(payload));
+        assertThat(buffer.remaining(), is(payload.length));
+    }
+
+    @Test
+    public void givenDecodedRecord_whenForwardedToRetryTopic_thenOriginalBytesSent() {
+        byte[] original = buildFilingRawAvroMessage();
+        Headers headers = new RecordHeaders();
+
+        filing result = underTest.deserialize("test-topic", headers, original);
+
+        // The recoverer copies the consumed record's headers onto the record it forwards.
+        ProducerRecord<String, Object> forwarded = new RetryableTopicErrorInterceptor().onSend(
+                new ProducerRecord<>("test-topic-retry", null, null, "test-key", result, headers));
+
+        assertThat(new GenericSerializer().serialize(forwarded.topic(), forwarded.value()), is(original));
+        assertThat(forwarded.headers().lastHeader(NotificationMatchDeserializer.ORIGINAL_VALUE_HEADER), is(nullValue()));
+    }
+
+    @Test
+    public void givenProjectionSchema_whenCheckedAgainstWriterSchema_thenCompatible() {
+        SchemaCompatibility.SchemaPairCompatibility compatibility = SchemaCompatibility.checkReaderWriterCompatibility(
+                NotificationMatchDeserializer.PROJECTION_SCHEMA, NotificationMatchDeserializer.WRITER_SCHEMA);
+
+        assertThat(compatibility.getType(), is(SchemaCompatibilityType.COMPATIBLE));
+        assertThat(NotificationMatchDeserializer.PROJECTION_SCHEMA.getFullName(), is(filing.getClassSchema().getFullName()));
+    }
+
+    @Test
+    public void givenProjectionSchema_whenCompared_thenFieldsMatchWriterSchema() {
+        Schema projection = NotificationMatchDeserializer.PROJECTION_SCHEMA;
+
+        assertThat(projection.getFields().size(), is(NotificationMatchDeserializer.PROJECTED_FIELDS.size()));
+        for (Schema.Field field : projection.getFields()) {
+            Schema.Field writerField = NotificationMatchDeserializer.WRITER_SCHEMA.getField(field.name());
+
+            assertThat(writerField, is(notNullValue()));
+            assertThat(field.schema(), is(writerField.schema()));
+        }
+    }
+
+    @Test
+    public void givenWriterSchemaWithoutProjectedField_whenProjectionBuilt_thenExceptionRaised() {
+        Schema writerSchema = SchemaBuilder.record("filing").namespace("monitor").fields()
+                .requiredString("data")
+                .requiredString("user_id")
+                .requiredString("kind")
+                .endRecord();
+
+        IllegalStateException expectedException = assertThrows(IllegalStateException.class, () -> {
+            NotificationMatchDeserializer.buildProjectionSchema(writerSchema);
+        });
+
+        assertThat(expectedException.getMessage().contains(List.of("data", "user_id", "kind").toString()), is(true));
+    }
 }
@@ -0,0 +1,101 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
+
+class CompanyApiGuardTest {
+
+    SimpleMeterRegistry registry;
+    CompanyLookupProperties properties;
+    ExecutorService executor;
+
+    CompanyApiGuard underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        properties = new CompanyLookupProperties();
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallRateThreshold(50);
+        properties.setSlowCallDuration(2000L);
+        properties.setSlidingWindowSize(4);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setWaitInOpenState(60_000L);
+        properties.setMaxConcurrentCalls(1);
+        properties.setMaxWaitDuration(0L);
+
+        executor = Executors.newSingleThreadExecutor();
+
+        underTest = new CompanyApiGuard(properties, registry, mock(Logger.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenBreakerClosed_whenExecuted_thenResultReturned() {
+        assertThat(underTest.execute(() -> "result"), is("result"));
+    }
+
+    @Test
+    void givenRepeatedFailures_whenExecuted_thenBreakerOpensAndFailsFast() {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(NonRetryableException.class, () -> underTest.execute(() -> {
+                throw new NonRetryableException("Internal Server Error");
+            }));
+        }
+
+        assertThat(underTest.getCircuitBreaker().getState(), is(CircuitBreaker.State.OPEN));
+
+        RetryableException expectedException = assertThrows(RetryableException.class, () -> underTest.execute(() -> "result"));
+
+        assertThat(expectedException.getCause(), is(instanceOf(CallNotPermittedException.class)));
+        assertThat(registry.get("resilience4j.circuitbreaker.state").tag("name", "company-profile-api")
+                .tag("state", "open").gauge().value(), is(1.0));
+    }
+
+    @Test
+    void givenBulkheadFull_whenExecuted_thenRetryableExceptionRaised() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> underTest.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "result";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        RetryableException expectedException = assertThrows(RetryableException.class, () -> underTest.execute(() -> "result"));
+        release.countDown();
+
+        assertThat(expectedException.getCause(), is(instanceOf(BulkheadFullException.class)));
+        assertThat(underTest.getCircuitBreaker().getMetrics().getNumberOfFailedCalls(), is(0));
+    }
+}
@@ -1,21 +1,36 @@
 package uk.gov.companieshouse.monitornotification.matcher.service;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildCompanyDetails;
 
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,7 +45,14 @@ import uk.gov.companieshouse.api.handler.exception.URIValidationException;
 import uk.gov.companieshouse.api.http.HttpClient;
 import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.cache.CompanyDetailsCache;
+import uk.gov.companieshouse.monitornotification.matcher.cache.NoOpCompanyDetailsCache;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
 import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.exception.RetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.logging.DataMapHolder;
+import uk.gov.companieshouse.monitornotification.matcher.store.CompanyDetailsStore;
+import uk.gov.companieshouse.monitornotification.matcher.store.NoOpCompanyDetailsStore;
 
 @ExtendWith(MockitoExtension.class)
 public class CompanyServiceTest {
@@ -41,11 +63,41 @@ public class CompanyServiceTest {
     @Mock
     Logger logger;
 
+    CompanyDetailsStore store;
+    CompanyDetailsCache cache;
+    SimpleMeterRegistry registry;
+    CompanyLookupProperties lookupProperties;
+    CompanyApiGuard guard;
+
     CompanyService underTest;
 
     @BeforeEach
     void setUp() {
-        underTest = new CompanyService(supplier, logger);
+        registry = new SimpleMeterRegistry();
+
+        lookupProperties = new CompanyLookupProperties();
+        lookupProperties.setTimeout(5000L);
+        lookupProperties.setThreads(2);
+        lookupProperties.setFailureRateThreshold(50);
+        lookupProperties.setSlowCallRateThreshold(50);
+        lookupProperties.setSlowCallDuration(2000L);
+        lookupProperties.setSlidingWindowSize(10);
+        lookupProperties.setMinimumNumberOfCalls(5);
+        lookupProperties.setWaitInOpenState(1000L);
+        lookupProperties.setMaxConcurrentCalls(4);
+        lookupProperties.setMaxWaitDuration(100L);
+        lookupProperties.setQueueTimeout(5000L);
+
+        guard = new CompanyApiGuard(lookupProperties, registry, logger);
+
+        store = new NoOpCompanyDetailsStore();
+        cache = new NoOpCompanyDetailsCache();
+        underTest = new CompanyService(supplier, store, cache, guard, lookupProperties, registry, logger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
     }
 
     @Test
@@ -151,4 +203,333 @@ public class CompanyServiceTest {
         assertThat(expectedException.getMessage(), is("Invalid URI"));
         assertThat(expectedException.getCause(), is(exceptionToRaise));
     }
+
+    @Test
+    void givenCompanyCached_whenCompanyLookup_thenApiNotCalled() {
+        CompanyDetails companyDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        verify(logger, times(1)).trace("findCompanyDetails(companyNumber=%s) method called.".formatted(COMPANY_NUMBER));
+        verifyNoInteractions(supplier);
+
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get(), is(companyDetails));
+    }
+
+    @Test
+    void givenCompanyNotCached_whenCompanyLookup_thenResultCached() throws ApiErrorResponseException, URIValidationException {
+        CompanyDetails companyDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.empty());
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenReturn(new ApiResponse<>(200, Map.of(), companyDetails));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        verify(companyCache, times(1)).put(COMPANY_NUMBER, companyDetails);
+        assertThat(result.get(), is(companyDetails));
+    }
+
+    @Test
+    void givenCompanyNotExists_whenCompanyLookup_thenNotFoundCached() throws ApiErrorResponseException, URIValidationException {
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.empty());
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenThrow(ApiErrorResponseException.fromHttpResponseException(
+                new HttpResponseException.Builder(404, "Not Found", new HttpHeaders()).build()));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        verify(companyCache, never()).put(anyString(), any(CompanyDetails.class));
+        verify(companyCache, times(1)).putNotFound(COMPANY_NUMBER);
+        assertThat(result.isPresent(), is(false));
+    }
+
+    @Test
+    void givenCompanyRecentlyNotFound_whenCompanyLookup_thenApiNotCalled() {
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(companyCache.isNotFound(COMPANY_NUMBER)).thenReturn(true);
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        verify(logger, times(1)).debug("Company '%s' recently not found, skipping lookup.".formatted(COMPANY_NUMBER));
+        verifyNoInteractions(supplier);
+
+        assertThat(result.isPresent(), is(false));
+    }
+
+    @Test
+    void givenUnauthorized_whenCompanyLookup_thenNotFoundNotCached() throws ApiErrorResponseException, URIValidationException {
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.empty());
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenThrow(ApiErrorResponseException.fromHttpResponseException(
+                new HttpResponseException.Builder(401, "Unauthorized", new HttpHeaders()).build()));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        assertThrows(NonRetryableException.class, () -> underTest.findCompanyDetails(COMPANY_NUMBER));
+
+        verify(companyCache, never()).putNotFound(anyString());
+    }
+
+    @Test
+    void givenCompanyCached_whenAsyncCompanyLookup_thenCompletedImmediately() {
+        CompanyDetails companyDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        CompletableFuture<Optional<CompanyDetails>> result = underTest.findCompanyDetailsAsync(COMPANY_NUMBER);
+
+        assertThat(result.isDone(), is(true));
+        assertThat(result.join().get(), is(companyDetails));
+        verifyNoInteractions(supplier);
+    }
+
+    @Test
+    void givenCompanyExists_whenAsyncCompanyLookup_thenRequestIdPropagated() throws Exception {
+        CompanyDetails companyDetails = buildCompanyDetails();
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenReturn(new ApiResponse<>(200, Map.of(), companyDetails));
+
+        DataMapHolder.initialise("async-request-id");
+        try {
+            Optional<CompanyDetails> result = underTest.findCompanyDetailsAsync(COMPANY_NUMBER).get(5, TimeUnit.SECONDS);
+
+            assertThat(result.get(), is(companyDetails));
+            verify(httpClient, times(1)).setRequestId("async-request-id");
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+
+    @Test
+    void givenSlowCompanyLookup_whenAsyncCompanyLookup_thenTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        InternalApiClient client = mock(InternalApiClient.class);
+
+        when(supplier.get()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return client;
+        });
+
+        lookupProperties.setTimeout(50L);
+        underTest = new CompanyService(supplier, store, cache, guard, lookupProperties, registry, logger);
+
+        CompletableFuture<Optional<CompanyDetails>> result = underTest.findCompanyDetailsAsync(COMPANY_NUMBER);
+
+        ExecutionException expectedException = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertThat(expectedException.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+
+    @Test
+    void givenCompanyInStore_whenCompanyLookup_thenCacheAndApiNotCalled() {
+        CompanyDetails companyDetails = buildCompanyDetails();
+        CompanyDetailsStore companyStore = mock(CompanyDetailsStore.class);
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyStore.find(COMPANY_NUMBER)).thenReturn(Optional.of(companyDetails));
+
+        underTest = new CompanyService(supplier, companyStore, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+        CompletableFuture<Optional<CompanyDetails>> asyncResult = underTest.findCompanyDetailsAsync(COMPANY_NUMBER);
+
+        assertThat(result.get(), is(companyDetails));
+        assertThat(asyncResult.isDone(), is(true));
+        assertThat(asyncResult.join().get(), is(companyDetails));
+        verifyNoInteractions(companyCache);
+        verifyNoInteractions(supplier);
+    }
+
+    @Test
+    void givenCircuitBreakerOpen_whenCompanyLookup_thenRetryableExceptionRaised() {
+        guard.getCircuitBreaker().transitionToOpenState();
+
+        RetryableException expectedException = assertThrows(RetryableException.class, () -> {
+            underTest.findCompanyDetails(COMPANY_NUMBER);
+        });
+
+        assertThat(expectedException.getMessage(), is("Company Profile API circuit breaker is open"));
+        verifyNoInteractions(supplier);
+    }
+
+    @Test
+    void givenCachedCompanyDueForRefresh_whenCompanyLookup_thenCachedReturnedAndReloadedInBackground()
+            throws ApiErrorResponseException, URIValidationException {
+        CompanyDetails cachedDetails = buildCompanyDetails();
+        CompanyDetails refreshedDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.of(cachedDetails));
+        when(companyCache.isDueForRefresh(COMPANY_NUMBER)).thenReturn(true);
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenReturn(new ApiResponse<>(200, Map.of(), refreshedDetails));
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        assertThat(result.get(), is(sameInstance(cachedDetails)));
+        verify(companyCache, timeout(5000)).put(COMPANY_NUMBER, refreshedDetails);
+        assertThat(registry.get(CompanyService.STALE_SERVES_METRIC).counter().count(), is(1.0));
+    }
+
+    @Test
+    void givenCachedCompanyGoneWhenRefreshed_whenCompanyLookup_thenCachedDetailsInvalidated()
+            throws ApiErrorResponseException, URIValidationException {
+        CompanyDetails cachedDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.of(cachedDetails));
+        when(companyCache.isDueForRefresh(COMPANY_NUMBER)).thenReturn(true);
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        ApiErrorResponseException exceptionToRaise = ApiErrorResponseException.fromHttpResponseException(
+                new HttpResponseException.Builder(404, "Not Found", new HttpHeaders()).build()
+        );
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenThrow(exceptionToRaise);
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetails(COMPANY_NUMBER);
+
+        assertThat(result.get(), is(sameInstance(cachedDetails)));
+        verify(companyCache, timeout(5000)).invalidate(COMPANY_NUMBER);
+        verify(companyCache, timeout(5000)).putNotFound(COMPANY_NUMBER);
+        verify(companyCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void givenBackgroundRefreshFails_whenCompanyLookup_thenCachedDetailsStillServed()
+            throws ApiErrorResponseException, URIValidationException {
+        CompanyDetails cachedDetails = buildCompanyDetails();
+        CompanyDetailsCache companyCache = mock(CompanyDetailsCache.class);
+        when(companyCache.get(COMPANY_NUMBER)).thenReturn(Optional.of(cachedDetails));
+        when(companyCache.isDueForRefresh(COMPANY_NUMBER)).thenReturn(true);
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        ApiErrorResponseException exceptionToRaise = ApiErrorResponseException.fromHttpResponseException(
+                new HttpResponseException.Builder(500, "Internal Server Error", new HttpHeaders()).build()
+        );
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenThrow(exceptionToRaise);
+
+        underTest = new CompanyService(supplier, store, companyCache, guard, lookupProperties, registry, logger);
+
+        Optional<CompanyDetails> result = underTest.findCompanyDetailsAsync(COMPANY_NUMBER).join();
+
+        assertThat(result.get(), is(sameInstance(cachedDetails)));
+        verify(logger, timeout(5000)).info(startsWith("Background refresh of company details for '%s' failed"
+                .formatted(COMPANY_NUMBER)));
+        verify(companyCache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void givenBatchingEnabled_whenSameCompanyLookedUpConcurrently_thenApiCalledOnce()
+            throws ApiErrorResponseException, URIValidationException {
+        CompanyDetails companyDetails = buildCompanyDetails();
+
+        InternalApiClient client = mock(InternalApiClient.class);
+        HttpClient httpClient = mock(HttpClient.class);
+        PrivateCompanyDetailResourceHandler handler = mock(PrivateCompanyDetailResourceHandler.class);
+        PrivateCompanyDetailsGet getter = mock(PrivateCompanyDetailsGet.class);
+
+        when(supplier.get()).thenReturn(client);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.privateCompanyDetailResourceHandler()).thenReturn(handler);
+        when(handler.getCompanyDetails("/company/%s/company-detail".formatted(COMPANY_NUMBER))).thenReturn(getter);
+        when(getter.execute()).thenReturn(new ApiResponse<>(200, Map.of(), companyDetails));
+
+        lookupProperties.setBatchEnabled(true);
+        lookupProperties.setBatchWindow(20L);
+        lookupProperties.setBatchMaxSize(64);
+        lookupProperties.setBatchMaxInFlight(2);
+        underTest.shutdown();
+        registry = new SimpleMeterRegistry();
+        underTest = new CompanyService(supplier, store, cache, guard, lookupProperties, registry, logger);
+
+        CompletableFuture<Optional<CompanyDetails>> first = underTest.findCompanyDetailsAsync(COMPANY_NUMBER);
+        CompletableFuture<Optional<CompanyDetails>> second = underTest.findCompanyDetailsAsync(COMPANY_NUMBER);
+
+        assertThat(first.join().get(), is(companyDetails));
+        assertThat(second.join().get(), is(companyDetails));
+        verify(getter, times(1)).execute();
+        assertThat(registry.get(CompanyService.BATCHED_LOOKUPS_METRIC).counter().count(), is(1.0));
+    }
 }
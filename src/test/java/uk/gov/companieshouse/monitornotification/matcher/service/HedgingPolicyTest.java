@@ -0,0 +1,181 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyLookupProperties;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+
+class HedgingPolicyTest {
+
+    SimpleMeterRegistry registry;
+    CompanyLookupProperties properties;
+    RollingLatencyHistogram latencies;
+    CountDownLatch release;
+
+    HedgingPolicy underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+
+        properties = new CompanyLookupProperties();
+        properties.setTimeout(5000L);
+        properties.setHedgeEnabled(true);
+        properties.setHedgePercentile(0.95);
+        properties.setHedgeMinimumDelay(10L);
+        properties.setHedgeBudget(1.0);
+        properties.setTimeoutPercentile(0.99);
+        properties.setTimeoutMultiplier(3);
+        properties.setMinimumTimeout(100L);
+
+        latencies = new RollingLatencyHistogram(60_000L, System::currentTimeMillis);
+        release = new CountDownLatch(1);
+
+        underTest = new HedgingPolicy(properties, registry, latencies);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        underTest.shutdown();
+    }
+
+    private void warmUp(final long latency) {
+        for (int i = 0; i < HedgingPolicy.MINIMUM_SAMPLES; i++) {
+            latencies.record(latency);
+        }
+    }
+
+    private double hedges(final String result) {
+        return registry.get(HedgingPolicy.HEDGES_METRIC).tag("result", result).counter().count();
+    }
+
+    /** The first call blocks until released, any later call answers straight away. */
+    private String slowThenFast(final AtomicInteger calls) {
+        if (calls.getAndIncrement() == 0) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "primary";
+        }
+        return "hedge";
+    }
+
+    @Test
+    void givenHedgingDisabled_whenExecuted_thenRequestRunOnceWithConfiguredTimeout() {
+        properties.setHedgeEnabled(false);
+        underTest.shutdown();
+        underTest = new HedgingPolicy(properties, new SimpleMeterRegistry(), latencies);
+        warmUp(10L);
+
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(underTest.execute(() -> calls.incrementAndGet()), is(1));
+        assertThat(underTest.timeout(), is(5000L));
+    }
+
+    @Test
+    void givenTooFewLatencies_whenExecuted_thenNoHedgeSentAndConfiguredTimeoutUsed() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(underTest.execute(() -> calls.incrementAndGet()), is(1));
+        assertThat(underTest.timeout(), is(5000L));
+        assertThat(hedges("sent"), is(0.0));
+    }
+
+    @Test
+    void givenLatencies_whenTimeoutRead_thenTimeoutAdaptsWithinBounds() {
+        warmUp(200L);
+
+        long percentile = latencies.percentile(0.99);
+
+        assertThat(underTest.timeout(), is(percentile * 3));
+        assertThat(underTest.hedgeDelay(), is(latencies.percentile(0.95)));
+
+        warmUp(10_000L);
+        warmUp(10_000L);
+        warmUp(10_000L);
+
+        assertThat(underTest.timeout(), is(5000L));
+    }
+
+    @Test
+    void givenSlowPrimary_whenExecuted_thenHedgeSentAndFirstAnswerUsed() {
+        warmUp(10L);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(underTest.execute(() -> slowThenFast(calls)), is("hedge"));
+        assertThat(calls.get(), is(2));
+        assertThat(hedges("sent"), is(1.0));
+    }
+
+    @Test
+    void givenBudgetSpent_whenExecuted_thenNoHedgeSent() {
+        properties.setHedgeBudget(0.5);
+        underTest.shutdown();
+        registry = new SimpleMeterRegistry();
+        underTest = new HedgingPolicy(properties, registry, latencies);
+        warmUp(10L);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = underTest.execute(() -> {
+            calls.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "primary";
+        });
+
+        assertThat(result, is("primary"));
+        assertThat(calls.get(), is(1));
+        assertThat(hedges("sent"), is(0.0));
+        assertThat(hedges("rejected"), is(1.0));
+    }
+
+    @Test
+    void givenFailedPrimary_whenHedgeSucceeds_thenHedgeResultUsed() {
+        warmUp(10L);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = underTest.execute(() -> {
+            if (calls.getAndIncrement() == 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new NonRetryableException("Internal Server Error");
+            }
+            return "hedge";
+        });
+
+        assertThat(result, is("hedge"));
+    }
+
+    @Test
+    void givenBothRequestsFail_whenExecuted_thenFailureRethrown() {
+        warmUp(10L);
+
+        assertThrows(NonRetryableException.class, () -> underTest.execute(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            throw new NonRetryableException("Internal Server Error");
+        }));
+    }
+}
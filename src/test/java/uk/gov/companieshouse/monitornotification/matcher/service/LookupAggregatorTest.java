@@ -0,0 +1,261 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+
+class LookupAggregatorTest {
+
+    SimpleMeterRegistry registry;
+    DistributionSummary batchSizes;
+    Counter joinedLookups;
+    ExecutorService executor;
+
+    LookupAggregator<String, String> underTest;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        batchSizes = DistributionSummary.builder("test.batch.size").register(registry);
+        joinedLookups = Counter.builder("test.batched").register(registry);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (underTest != null) {
+            underTest.shutdown();
+        }
+        executor.shutdownNow();
+    }
+
+    private LookupAggregator<String, String> aggregator(final boolean enabled, final long window, final int maxBatchSize,
+            final int maxInFlight) {
+        return aggregator(enabled, window, maxBatchSize, maxInFlight, 5_000L);
+    }
+
+    private LookupAggregator<String, String> aggregator(final boolean enabled, final long window, final int maxBatchSize,
+            final int maxInFlight, final long queueTimeout) {
+        return new LookupAggregator<>(enabled, window, maxBatchSize, maxInFlight, queueTimeout, executor, batchSizes,
+                joinedLookups);
+    }
+
+    @Test
+    void givenBatchingDisabled_whenSubmitted_thenLookupRunsStraightAway() throws Exception {
+        underTest = aggregator(false, 60_000L, 64, 4);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = underTest.submit("key", () -> "result-" + calls.incrementAndGet());
+        CompletableFuture<String> second = underTest.submit("key", () -> "result-" + calls.incrementAndGet());
+
+        assertThat(first.get(1, TimeUnit.SECONDS).startsWith("result-"), is(true));
+        assertThat(second.get(1, TimeUnit.SECONDS).startsWith("result-"), is(true));
+        assertThat(calls.get(), is(2));
+        assertThat(batchSizes.count(), is(0L));
+    }
+
+    @Test
+    void givenLookupQueuedBehindBusyExecutor_whenSubmittedWithTimeout_thenQueuedTimeNotCounted() throws Exception {
+        executor.shutdownNow();
+        executor = Executors.newSingleThreadExecutor();
+        underTest = aggregator(false, 60_000L, 64, 4);
+
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<String> result = underTest.submit("key", () -> "result", 50L);
+
+        // Queued for longer than the timeout, which only starts once the lookup runs.
+        assertThrows(TimeoutException.class, () -> result.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is("result"));
+    }
+
+    @Test
+    void givenLookupQueuedBeyondQueueTimeout_whenSubmittedWithTimeout_thenTimesOutFromSubmission() throws Exception {
+        executor.shutdownNow();
+        executor = Executors.newSingleThreadExecutor();
+        underTest = aggregator(false, 60_000L, 64, 4, 100L);
+
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<String> result = underTest.submit("key", () -> "result", 60_000L);
+
+        // Never started, so only the queue timeout counted from submission can end the wait.
+        ExecutionException expectedException = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertThat(expectedException.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+
+    @Test
+    void givenBatchingWaitsForPermit_whenQueueTimeoutPasses_thenTimesOutFromSubmission() throws Exception {
+        underTest = aggregator(true, 10L, 64, 1, 100L);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> holding = underTest.submit("first", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "first-result";
+        });
+        CompletableFuture<String> waiting = underTest.submit("second", () -> "second-result", 60_000L);
+
+        ExecutionException expectedException = assertThrows(ExecutionException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertThat(expectedException.getCause(), is(instanceOf(TimeoutException.class)));
+        assertThat(holding.get(5, TimeUnit.SECONDS), is("first-result"));
+    }
+
+    @Test
+    void givenBatchingDisabledAndExecutorShutDown_whenSubmitted_thenFailedFutureReturned() {
+        executor.shutdownNow();
+        underTest = aggregator(false, 60_000L, 64, 4);
+
+        CompletableFuture<String> result = underTest.submit("key", () -> "result", 1_000L);
+
+        ExecutionException expectedException = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertThat(expectedException.getCause(), is(instanceOf(RejectedExecutionException.class)));
+    }
+
+    @Test
+    void givenSlowLookup_whenSubmittedWithTimeout_thenTimesOut() {
+        underTest = aggregator(true, 10L, 64, 4);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> result = underTest.submit("key", () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "result";
+        }, 50L);
+
+        ExecutionException expectedException = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertThat(expectedException.getCause(), is(instanceOf(TimeoutException.class)));
+    }
+
+    @Test
+    void givenSameKeyWithinWindow_whenSubmitted_thenLookedUpOnceAndResultShared() throws Exception {
+        underTest = aggregator(true, 20L, 64, 4);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = underTest.submit("key", () -> "result-" + calls.incrementAndGet());
+        CompletableFuture<String> second = underTest.submit("key", () -> "result-" + calls.incrementAndGet());
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(first.get(1, TimeUnit.SECONDS), is("result-1"));
+        assertThat(calls.get(), is(1));
+        assertThat(joinedLookups.count(), is(1.0));
+        assertThat(batchSizes.count(), is(1L));
+        assertThat(batchSizes.totalAmount(), is(1.0));
+    }
+
+    @Test
+    void givenBatchFull_whenSubmitted_thenSentWithoutWaitingForWindow() throws Exception {
+        underTest = aggregator(true, 60_000L, 2, 4);
+
+        CompletableFuture<String> first = underTest.submit("first", () -> "first-result");
+        CompletableFuture<String> second = underTest.submit("second", () -> "second-result");
+
+        assertThat(first.get(1, TimeUnit.SECONDS), is("first-result"));
+        assertThat(second.get(1, TimeUnit.SECONDS), is("second-result"));
+        assertThat(batchSizes.totalAmount(), is(2.0));
+    }
+
+    @Test
+    void givenManyDistinctKeys_whenBatchSent_thenInFlightLookupsBounded() throws Exception {
+        underTest = aggregator(true, 10L, 64, 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String key = "key-" + i;
+            results.add(underTest.submit(key, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return key;
+            }));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS), is("key-" + i));
+        }
+        assertThat(maxInFlight.get(), is(2));
+        assertThat(batchSizes.totalAmount(), is(8.0));
+    }
+
+    @Test
+    void givenLookupFails_whenBatchSent_thenEveryWaiterSeesFailure() {
+        underTest = aggregator(true, 10L, 64, 4);
+        NonRetryableException failure = new NonRetryableException("Internal Server Error");
+
+        CompletableFuture<String> first = underTest.submit("key", () -> {
+            throw failure;
+        });
+        CompletableFuture<String> second = underTest.submit("key", () -> "unused");
+
+        ExecutionException firstException = assertThrows(ExecutionException.class, () -> first.get(1, TimeUnit.SECONDS));
+        ExecutionException secondException = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+
+        assertThat(firstException.getCause(), is(sameInstance(failure)));
+        assertThat(secondException.getCause(), is(instanceOf(NonRetryableException.class)));
+    }
+
+    @Test
+    void givenOpenBatch_whenShutdown_thenWaitingLookupsSent() throws Exception {
+        underTest = aggregator(true, 60_000L, 64, 4);
+
+        CompletableFuture<String> result = underTest.submit("key", () -> "result");
+        underTest.shutdown();
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is("result"));
+    }
+}
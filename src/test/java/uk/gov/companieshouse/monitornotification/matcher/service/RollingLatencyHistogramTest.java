@@ -0,0 +1,66 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RollingLatencyHistogramTest {
+
+    AtomicLong clock;
+
+    RollingLatencyHistogram underTest;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(1_000_000L);
+        underTest = new RollingLatencyHistogram(60_000L, clock::get);
+    }
+
+    @Test
+    void givenNoLatencies_whenPercentileRead_thenZeroReturned() {
+        assertThat(underTest.count(), is(0L));
+        assertThat(underTest.percentile(0.99), is(0L));
+    }
+
+    @Test
+    void givenLatencies_whenPercentileRead_thenBucketWithinTenPercentReturned() {
+        for (long latency = 1; latency <= 1000; latency++) {
+            underTest.record(latency);
+        }
+
+        assertThat(underTest.count(), is(1000L));
+        assertThat(underTest.percentile(0.5), is(allOf(greaterThanOrEqualTo(500L), lessThanOrEqualTo(550L))));
+        assertThat(underTest.percentile(0.99), is(allOf(greaterThanOrEqualTo(990L), lessThanOrEqualTo(1089L))));
+    }
+
+    @Test
+    void givenLatencyAboveMaximum_whenRecorded_thenCountedInLastBucket() {
+        underTest.record(10 * RollingLatencyHistogram.MAX_LATENCY);
+
+        assertThat(underTest.percentile(1.0), is(RollingLatencyHistogram.MAX_LATENCY));
+    }
+
+    @Test
+    void givenOldLatencies_whenWindowPasses_thenTheyAgeOut() {
+        for (int i = 0; i < 100; i++) {
+            underTest.record(2000L);
+        }
+        clock.addAndGet(30_000L);
+        for (int i = 0; i < 100; i++) {
+            underTest.record(10L);
+        }
+
+        assertThat(underTest.count(), is(200L));
+
+        clock.addAndGet(40_000L);
+
+        assertThat(underTest.count(), is(100L));
+        assertThat(underTest.percentile(0.99), is(RollingLatencyHistogram.BOUNDS[RollingLatencyHistogram.bucket(10L)]));
+    }
+}
@@ -0,0 +1,113 @@
+package uk.gov.companieshouse.monitornotification.matcher.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+
+class SingleFlightTest {
+
+    Counter coalescedCalls;
+    ExecutorService executor;
+
+    SingleFlight<String, String> underTest;
+
+    @BeforeEach
+    void setUp() {
+        coalescedCalls = Counter.builder("test.coalesced").register(new SimpleMeterRegistry());
+        executor = Executors.newFixedThreadPool(2);
+        underTest = new SingleFlight<>(coalescedCalls);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenCallInFlight_whenSameKeyRequested_thenResultShared() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> underTest.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "result";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        Future<String> follower = executor.submit(() -> underTest.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        while (coalescedCalls.count() < 1.0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS), is("result"));
+        assertThat(follower.get(5, TimeUnit.SECONDS), is("result"));
+        assertThat(calls.get(), is(1));
+        assertThat(coalescedCalls.count(), is(1.0));
+    }
+
+    @Test
+    void givenCallInFlightFails_whenSameKeyRequested_thenExceptionShared() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NonRetryableException failure = new NonRetryableException("Unauthorized");
+
+        Future<String> leader = executor.submit(() -> underTest.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw failure;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+
+        Future<String> follower = executor.submit(() -> underTest.execute("key", () -> "other"));
+        while (coalescedCalls.count() < 1.0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        Exception leaderException = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerException = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+
+        assertThat(leaderException.getCause(), is(sameInstance(failure)));
+        assertThat(followerException.getCause(), is(sameInstance(failure)));
+    }
+
+    @Test
+    void givenCallCompleted_whenSameKeyRequested_thenCallRunsAgain() {
+        AtomicInteger calls = new AtomicInteger();
+
+        underTest.execute("key", () -> "result-" + calls.incrementAndGet());
+        String result = underTest.execute("key", () -> "result-" + calls.incrementAndGet());
+
+        assertThat(result, is("result-2"));
+        assertThat(coalescedCalls.count(), is(0.0));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
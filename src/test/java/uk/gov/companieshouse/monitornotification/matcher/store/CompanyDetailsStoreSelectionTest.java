@@ -0,0 +1,85 @@
+package uk.gov.companieshouse.monitornotification.matcher.store;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.kafka.core.ConsumerFactory;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyStoreProperties;
+
+/**
+ * Binds the production application.yml, so that a misplaced key in the store block is caught.
+ */
+class CompanyDetailsStoreSelectionTest {
+
+    private static final String TOPIC = "company-profile";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> applicationYaml().forEach(context.getEnvironment().getPropertySources()::addLast))
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+            .withUserConfiguration(CompanyStoreProperties.class, KafkaCompanyDetailsStore.class,
+                    NoOpCompanyDetailsStore.class)
+            .withBean("companyStoreConsumerFactory", ConsumerFactory.class, CompanyDetailsStoreSelectionTest::consumerFactory)
+            .withBean(ObjectMapper.class, ObjectMapper::new)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withBean(Logger.class, () -> mock(Logger.class));
+
+    private static List<PropertySource<?>> applicationYaml() {
+        try {
+            return new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConsumerFactory<String, String> consumerFactory() {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(new TopicPartition(TOPIC, 0), 0L));
+        consumer.updateEndOffsets(Map.of(new TopicPartition(TOPIC, 0), 0L));
+
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer()).thenReturn(consumer);
+        return consumerFactory;
+    }
+
+    @Test
+    void givenStoreEnabledInEnvironment_whenContextStarted_thenKafkaStoreCreated() {
+        contextRunner.withSystemProperties("COMPANY_STORE_ENABLED=true").run(context -> {
+            assertThat(context.getBean(CompanyStoreProperties.class).isEnabled(), is(true));
+            assertThat(context.getBean(CompanyStoreProperties.class).getTopic(), is(TOPIC));
+            assertThat(context.getBeansOfType(KafkaCompanyDetailsStore.class).size(), is(1));
+            assertThat(context.getBeansOfType(NoOpCompanyDetailsStore.class).isEmpty(), is(true));
+        });
+    }
+
+    @Test
+    void givenStoreNotEnabled_whenContextStarted_thenNoOpStoreCreated() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(CompanyStoreProperties.class).isEnabled(), is(false));
+            assertThat(context.getBeansOfType(NoOpCompanyDetailsStore.class).size(), is(1));
+            assertThat(context.getBeansOfType(KafkaCompanyDetailsStore.class).isEmpty(), is(true));
+        });
+    }
+}
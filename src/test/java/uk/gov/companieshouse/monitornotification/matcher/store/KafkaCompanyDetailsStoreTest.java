@@ -0,0 +1,148 @@
+package uk.gov.companieshouse.monitornotification.matcher.store;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NAME;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_NUMBER;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.COMPANY_STATUS;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+import uk.gov.companieshouse.api.company.CompanyDetails;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.config.properties.CompanyStoreProperties;
+
+class KafkaCompanyDetailsStoreTest {
+
+    private static final String TOPIC = "test-company-profile";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String PROFILE = """
+            {"company_number": "%s", "company_name": "%s", "company_status": "%s"}
+            """.formatted(COMPANY_NUMBER, COMPANY_NAME, COMPANY_STATUS);
+
+    MockConsumer<String, String> consumer;
+    SimpleMeterRegistry registry;
+
+    KafkaCompanyDetailsStore underTest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+
+        ConsumerFactory<String, String> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer()).thenReturn(consumer);
+
+        CompanyStoreProperties properties = new CompanyStoreProperties();
+        properties.setEnabled(true);
+        properties.setTopic(TOPIC);
+        properties.setPollTimeout(10L);
+
+        registry = new SimpleMeterRegistry();
+
+        underTest = new KafkaCompanyDetailsStore(properties, consumerFactory, new ObjectMapper(), registry,
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), mock(Logger.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    void givenCompactedTopic_whenStoreStarted_thenCompaniesLoaded() {
+        consumer.updateEndOffsets(Map.of(PARTITION, 2L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(buildRecord(0L, "00000001", PROFILE, NOW - 5000L));
+            consumer.addRecord(buildRecord(1L, COMPANY_NUMBER, PROFILE, NOW - 1000L));
+        });
+
+        underTest.start();
+        awaitLoaded();
+
+        Optional<CompanyDetails> result = underTest.find(COMPANY_NUMBER);
+
+        assertThat(result.isPresent(), is(true));
+        assertThat(result.get().getCompanyNumber(), is(COMPANY_NUMBER));
+        assertThat(result.get().getCompanyName(), is(COMPANY_NAME));
+        assertThat(result.get().getCompanyStatus(), is(COMPANY_STATUS));
+
+        assertThat(registry.get("notification.match.company.store.size").gauge().value(), is(2.0));
+        assertThat(registry.get("notification.match.company.store.loaded").gauge().value(), is(1.0));
+        assertThat(registry.get("notification.match.company.store.staleness").gauge().value(), is(1000.0));
+    }
+
+    @Test
+    void givenEmptyTopic_whenStoreStarted_thenLoadedWithoutCompanies() {
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+
+        underTest.start();
+        awaitLoaded();
+
+        assertThat(underTest.find(COMPANY_NUMBER).isPresent(), is(false));
+        assertThat(registry.get("notification.match.company.store.size").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void givenTombstone_whenApplied_thenCompanyRemoved() {
+        underTest.apply(buildRecord(0L, COMPANY_NUMBER, PROFILE, NOW));
+        underTest.apply(buildRecord(1L, COMPANY_NUMBER, null, NOW));
+
+        assertThat(underTest.find(COMPANY_NUMBER).isPresent(), is(false));
+    }
+
+    @Test
+    void givenUnreadableProfile_whenApplied_thenRecordSkipped() {
+        underTest.apply(buildRecord(0L, COMPANY_NUMBER, PROFILE, NOW));
+        underTest.apply(buildRecord(1L, COMPANY_NUMBER, "!nvalid json", NOW));
+
+        assertThat(underTest.find(COMPANY_NUMBER).get().getCompanyName(), is(COMPANY_NAME));
+    }
+
+    @Test
+    void givenLookups_whenMetricsRead_thenHitsAndMissesReported() {
+        underTest.apply(buildRecord(0L, COMPANY_NUMBER, PROFILE, NOW));
+
+        underTest.find(COMPANY_NUMBER);
+        underTest.find("00000002");
+        underTest.find("00000003");
+
+        assertThat(registry.get("notification.match.company.store.lookups").tag("result", "hit").counter().count(), is(1.0));
+        assertThat(registry.get("notification.match.company.store.lookups").tag("result", "miss").counter().count(), is(2.0));
+        assertThat(registry.get("notification.match.company.store.loaded").gauge().value(), is(0.0));
+    }
+
+    private void awaitLoaded() {
+        await().atMost(5, TimeUnit.SECONDS).until(underTest::isLoaded);
+    }
+
+    private static ConsumerRecord<String, String> buildRecord(final long offset, final String key, final String value,
+            final long timestamp) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, timestamp, TimestampType.CREATE_TIME, -1, -1, key, value,
+                new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,62 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import monitor.filing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Compares extracting every value the processor needs from a message with the previous extractor, which
+ * parsed the payload again for each value, against the parsed view that is shared by every extraction step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationMatchDataExtractorBenchmark {
+
+    private PreviousNotificationMatchDataExtractor previousExtractor;
+    private NotificationMatchDataExtractor extractor;
+    private filing message;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        previousExtractor = new PreviousNotificationMatchDataExtractor(mapper, LoggerFactory.getLogger("benchmark"));
+        extractor = new NotificationMatchDataExtractor(mapper, LoggerFactory.getLogger("benchmark"));
+        message = buildFilingUpdateMessage().getPayload();
+    }
+
+    @Benchmark
+    public void parsedPerStep(final Blackhole blackhole) {
+        blackhole.consume(previousExtractor.getCompanyNumber(message));
+        blackhole.consume(previousExtractor.isDelete(message));
+        blackhole.consume(previousExtractor.getFilingHistory(message));
+        blackhole.consume(previousExtractor.getDescriptionValues(message));
+    }
+
+    @Benchmark
+    public void parsedOnce(final Blackhole blackhole) {
+        ParsedNotificationMatch match = extractor.parse(message);
+
+        blackhole.consume(extractor.getCompanyNumber(match));
+        blackhole.consume(extractor.isDelete(match));
+        blackhole.consume(extractor.getFilingHistory(match));
+        blackhole.consume(extractor.getDescriptionValues(match));
+    }
+}
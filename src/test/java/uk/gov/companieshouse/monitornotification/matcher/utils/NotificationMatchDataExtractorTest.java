@@ -3,16 +3,24 @@ package uk.gov.companieshouse.monitornotification.matcher.utils;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutCompanyNumber;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutIsDelete;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
 import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateWithLegacyDescriptionAndMissingDescriptionValuesMessage;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import java.util.Map;
 import java.util.Optional;
 import monitor.filing;
@@ -24,7 +32,9 @@ import org.springframework.messaging.Message;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.model.FilingData;
 import uk.gov.companieshouse.monitornotification.matcher.model.FilingHistory;
+import uk.gov.companieshouse.monitornotification.matcher.model.NotificationMatchPayload;
 
 @ExtendWith(MockitoExtension.class)
 class NotificationMatchDataExtractorTest {
@@ -43,150 +53,148 @@ class NotificationMatchDataExtractorTest {
     }
 
     @Test
-    void givenValidPayload_whenFindDataNodeExists_thenReturnValue() {
+    void givenValidPayload_whenReadPayload_thenReturnValue() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findDataNode(payload);
+        NotificationMatchPayload result = underTest.readPayload(payload);
 
-        assertThat(dataNode, is(notNullValue()));
-        assertThat(dataNode.getNodeType(), is(JsonNodeType.OBJECT));
+        assertThat(result, is(notNullValue()));
+        assertThat(result.companyNumber(), is("00006400"));
+        assertThat(result.isDelete(), is(FALSE));
+        assertThat(result.data(), is(notNullValue()));
+        assertThat(result.data().type(), is("AP01"));
+        assertThat(result.data().description(), is("appoint-person-director-company-with-name-date"));
+        assertThat(result.data().date(), is("2025-02-04"));
+        assertThat(result.data().descriptionValues().get("officer_name"), is("DR AMIDAT DUPE IYIOLA"));
     }
 
     @Test
-    void givenValidPayload_whenFindNestedDataNode_thenReturnValue() {
-        Message<filing> message = buildFilingUpdateMessage();
+    void givenCompanyNumberMissing_whenGetCompanyNumber_thenReturnEmpty() {
+        Message<filing> message = buildFilingDeleteMessageWithoutCompanyNumber();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findNestedDataNode(payload);
-
-        assertThat(dataNode, is(notNullValue()));
-        assertThat(dataNode.getNodeType(), is(JsonNodeType.OBJECT));
-    }
-
-    @Test
-    void givenMissingDataNode_whenGetOptionalValue_thenReturnEmpty() {
-        Optional<JsonNode> companyNumber = underTest.getOptionalNodeValue(null, "company_number");
+        Optional<String> companyNumber = underTest.getCompanyNumber(payload);
 
         assertThat(companyNumber, is(notNullValue()));
         assertThat(companyNumber.isPresent(), is(FALSE));
     }
 
     @Test
-    void givenOptionalDataNodeValue_whenValueExists_thenReturnValue() {
-        Message<filing> message = buildFilingUpdateMessage();
+    void givenIsDeleteMissing_whenIsDelete_thenReturnFalse() {
+        Message<filing> message = buildFilingDeleteMessageWithoutIsDelete();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findDataNode(payload);
-        Optional<JsonNode> companyNumber = underTest.getOptionalNodeValue(dataNode, "company_number");
-
-        assertThat(companyNumber, is(notNullValue()));
-        assertThat(companyNumber.isPresent(), is(TRUE));
-        assertThat(companyNumber.get().asText(), is("00006400"));
+        assertThat(underTest.isDelete(payload), is(FALSE));
     }
 
     @Test
-    void givenOptionalDataNodeValue_whenNullValueExists_thenReturnValue() {
+    void givenIsDeleteSupplied_whenIsDelete_thenReturnValue() {
         Message<filing> message = buildFilingDeleteMessageWithoutCompanyNumber();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findDataNode(payload);
-        Optional<JsonNode> companyNumber = underTest.getOptionalNodeValue(dataNode, "company_name");
-
-        assertThat(companyNumber, is(notNullValue()));
-        assertThat(companyNumber.isPresent(), is(FALSE));
+        assertThat(underTest.isDelete(payload), is(TRUE));
     }
 
     @Test
-    void givenOptionalDataNodeValue_whenValueMissing_thenReturnEmpty() {
+    void givenMalformedPayload_whenReadPayload_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findDataNode(payload);
-        Optional<JsonNode> companyNumber = underTest.getOptionalNodeValue(dataNode, "company_name");
-
-        assertThat(companyNumber, is(notNullValue()));
-        assertThat(companyNumber.isPresent(), is(FALSE));
-    }
+        payload.setData("!nvalid json");
 
-    @Test
-    void givenMissingDataNode_whenGetMandatoryValue_thenRaiseException() {
-        IllegalArgumentException expectedException = assertThrows(IllegalArgumentException.class, () -> {
-            underTest.getMandatoryNodeValue(null, "company_number");
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
+            underTest.readPayload(payload);
         });
 
-        assertThat(expectedException, is(notNullValue()));
-        assertThat(expectedException.getMessage(), is("Supplied node does not contain a valid 'company_number' node!"));
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
+        assertThat(expectedException.getCause(), is(instanceOf(JsonParseException.class)));
     }
 
     @Test
-    void givenDataNode_whenGetMandatoryValueMissing_thenRaiseException() {
+    void givenWrongShapeOfPayload_whenReadPayload_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findDataNode(payload);
+        payload.setData("{\"company_number\":\"00006400\",\"data\":{\"description_values\":[\"unexpected\"]}}");
 
-        IllegalArgumentException expectedException = assertThrows(IllegalArgumentException.class, () -> {
-            underTest.getMandatoryNodeValue(dataNode, "company_name");
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
+            underTest.readPayload(payload);
         });
 
-        assertThat(expectedException, is(notNullValue()));
-        assertThat(expectedException.getMessage(), is("Supplied node does not contain a valid 'company_name' node!"));
+        assertThat(expectedException.getCause(), is(instanceOf(MismatchedInputException.class)));
     }
 
     @Test
-    void givenOptionalNestedDataNodeValue_whenValueExists_thenReturnValue() {
+    void givenTrailingContent_whenReadPayload_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findNestedDataNode(payload);
-        Optional<JsonNode> filingType = underTest.getOptionalNodeValue(dataNode, "type");
+        payload.setData("{\"company_number\":\"00006400\"} {\"company_number\":\"00006401\"}");
 
-        assertThat(filingType, is(notNullValue()));
-        assertThat(filingType.isPresent(), is(TRUE));
-        assertThat(filingType.get().asText(), is("AP01"));
+        assertThrows(NonRetryableException.class, () -> underTest.readPayload(payload));
     }
 
     @Test
-    void givenOptionalNestedDataNodeValue_whenValueMissing_thenReturnEmpty() {
+    void givenEmptyPayload_whenReadPayload_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        JsonNode dataNode = underTest.findNestedDataNode(payload);
-        Optional<JsonNode> companyNumber = underTest.getOptionalNodeValue(dataNode, "company_name");
+        payload.setData("");
+
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
+            underTest.readPayload(payload);
+        });
 
-        assertThat(companyNumber, is(notNullValue()));
-        assertThat(companyNumber.isPresent(), is(FALSE));
+        assertThat(expectedException, is(notNullValue()));
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
     }
 
     @Test
-    void givenNestedDataNode_whenNullValue_thenRaiseException() {
+    void givenNestedDataNull_whenGetFilingData_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        payload.setData("");
+        payload.setData("{\"data\":null}");
+
+        ParsedNotificationMatch match = underTest.parse(payload);
 
         NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
-            underTest.findNestedDataNode(payload);
+            underTest.getFilingData(match);
         });
 
         assertThat(expectedException, is(notNullValue()));
-        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the JsonNode: data"));
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
     }
 
     @Test
-    void givenNestedDataNode_whenEmptyValue_thenRaiseException() {
+    void givenNestedDataEmpty_whenGetFilingData_thenRaiseException() {
         Message<filing> message = buildFilingUpdateMessage();
         filing payload = message.getPayload();
 
-        payload.setData("{\"data\":null}");
+        payload.setData("{\"data\":{}}");
+
+        ParsedNotificationMatch match = underTest.parse(payload);
 
         NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
-            underTest.findNestedDataNode(payload);
+            underTest.getFilingData(match);
         });
 
-        assertThat(expectedException, is(notNullValue()));
-        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the JsonNode: data"));
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
+    }
+
+    @Test
+    void givenMandatoryValueMissing_whenGetFilingHistory_thenRaiseException() {
+        Message<filing> message = buildFilingUpdateMessage();
+        filing payload = message.getPayload();
+
+        payload.setData("{\"data\":{\"type\":\"AP01\",\"description\":\"legacy\"}}");
+
+        IllegalArgumentException expectedException = assertThrows(IllegalArgumentException.class, () -> {
+            underTest.getFilingHistory(payload);
+        });
+
+        assertThat(expectedException.getMessage(), is("Supplied payload does not contain a valid 'date' attribute!"));
     }
 
     @Test
@@ -200,6 +208,16 @@ class NotificationMatchDataExtractorTest {
         assertThat(result.isEmpty(), is(TRUE));
     }
 
+    @Test
+    void givenDescriptionValues_whenModified_thenRaiseException() {
+        Message<filing> message = buildFilingUpdateMessage();
+        filing payload = message.getPayload();
+
+        Map<String, String> result = underTest.getDescriptionValues(payload);
+
+        assertThrows(UnsupportedOperationException.class, () -> result.put("officer_name", "changed"));
+    }
+
     @Test
     void givenMissingDescriptionValues_whenGetFilingHistory_thenReturnValues() {
         Message<filing> message = buildFilingUpdateWithLegacyDescriptionAndMissingDescriptionValuesMessage();
@@ -212,4 +230,56 @@ class NotificationMatchDataExtractorTest {
         assertThat(result.getDescription(), is("legacy"));
         assertThat(result.getDate(), is("2025-02-04"));
     }
+
+    @Test
+    void givenParsedMessage_whenEveryValueExtracted_thenPayloadBoundOnce() throws Exception {
+        mapper = spy(new ObjectMapper());
+        underTest = new NotificationMatchDataExtractor(mapper, logger);
+
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        ParsedNotificationMatch match = underTest.parse(payload);
+
+        Optional<String> companyNumber = underTest.getCompanyNumber(match);
+        Boolean isDelete = underTest.isDelete(match);
+        FilingHistory filingHistory = underTest.getFilingHistory(match);
+        Map<String, String> descriptionValues = underTest.getDescriptionValues(match);
+
+        // The payload is bound straight into records, without an intermediate tree or map conversion.
+        verify(mapper, never()).readTree(any(String.class));
+        verify(mapper, never()).convertValue(any(), any(TypeReference.class));
+
+        assertThat(match.getMessage(), is(payload));
+        assertThat(match.getPayload(), is(match.getPayload()));
+        assertThat(companyNumber.orElseThrow(), is("00006400"));
+        assertThat(isDelete, is(FALSE));
+        assertThat(filingHistory.getType(), is("AP01"));
+        assertThat(filingHistory.getDescription(), is("appoint-person-director-company-with-name-date"));
+        assertThat(filingHistory.getDate(), is("2025-02-04"));
+        assertThat(descriptionValues.get("officer_name"), is("DR AMIDAT DUPE IYIOLA"));
+    }
+
+    @Test
+    void givenParsedMessageWithoutNestedData_whenFilingHistoryExtracted_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":\"00006400\"}");
+
+        ParsedNotificationMatch match = underTest.parse(payload);
+
+        assertThat(underTest.getCompanyNumber(match).orElseThrow(), is("00006400"));
+        assertThat(match.getPayload().data(), is(nullValue()));
+
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class, () -> {
+            underTest.getFilingHistory(match);
+        });
+
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
+    }
+
+    @Test
+    void givenFilingDataWithoutDescriptionValues_whenConstructed_thenEmptyMap() {
+        FilingData filingData = new FilingData("AP01", "legacy", "2025-02-04", null);
+
+        assertThat(filingData.descriptionValues().isEmpty(), is(TRUE));
+    }
 }
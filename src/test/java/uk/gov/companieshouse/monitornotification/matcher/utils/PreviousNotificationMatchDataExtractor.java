@@ -0,0 +1,144 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import static java.lang.Boolean.FALSE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import monitor.filing;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.model.FilingHistory;
+
+/**
+ * The extractor as it was before the payload was parsed once and shared, kept unchanged (other than its
+ * name and the component annotation) so that {@link NotificationMatchDataExtractorBenchmark} measures the
+ * previous path itself rather than an approximation of it.
+ */
+class PreviousNotificationMatchDataExtractor {
+
+    private static final String ERROR_EXTRACTING_JSON_NODE = "An error occurred while attempting to extract the JsonNode: %s";
+
+    private final ObjectMapper mapper;
+    private final Logger logger;
+
+    PreviousNotificationMatchDataExtractor(final ObjectMapper mapper, final Logger logger) {
+        this.mapper = mapper;
+        this.logger = logger;
+    }
+
+    public Optional<String> getCompanyNumber(final filing message) {
+        logger.trace("getCompanyNumber(message=%s) method called.".formatted(message));
+
+        Optional<JsonNode> companyNumber = getOptionalNodeValue(findDataNode(message), "company_number");
+        return companyNumber.map(JsonNode::asText);
+    }
+
+    public Boolean isDelete(final filing message) {
+        logger.trace("isDelete(message=%s) method called.".formatted(message));
+
+        Optional<JsonNode> isDelete = getOptionalNodeValue(findDataNode(message), "is_delete");
+        return isDelete.map(JsonNode::asBoolean).orElse(FALSE);
+    }
+
+    public FilingHistory getFilingHistory(final filing message) {
+        logger.trace("getFilingHistory(message=%s) method called.".formatted(message));
+
+        String type = getFilingType(message);
+        String description = getFilingDescription(message);
+        String date = getFilingDate(message);
+
+        return new FilingHistory(type, description, date);
+    }
+
+    private String getFilingType(final filing message) {
+        logger.trace("getFilingType(message=%s) method called.".formatted(message));
+
+        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "type");
+        return filingType.asText();
+    }
+
+    private String getFilingDescription(final filing message) {
+        logger.trace("getFilingDescription(message=%s) method called.".formatted(message));
+
+        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "description");
+        return filingType.asText();
+    }
+
+    private String getFilingDate(final filing message) {
+        logger.trace("getFilingDate(message=%s) method called.".formatted(message));
+
+        JsonNode filingType = getMandatoryNodeValue(findNestedDataNode(message), "date");
+        return filingType.asText();
+    }
+
+    public Map<String, String> getDescriptionValues(final filing message) {
+        logger.trace("getDescriptionValues(message=%s) method called.".formatted(message));
+
+        Optional<JsonNode> descriptionValues = getOptionalNodeValue(findNestedDataNode(message), "description_values");
+
+        if(descriptionValues.isEmpty()) {
+            logger.debug(String.format("No description values found for message: %s", descriptionValues));
+            return Collections.emptyMap();
+        }
+
+        return mapper.convertValue(descriptionValues.get(), new TypeReference<>() { });
+    }
+
+    public Optional<JsonNode> getOptionalNodeValue(final JsonNode node, final String attribute) {
+        logger.trace("getOptionalNodeValue(node=%s, attribute=%s) method called.".formatted(node, attribute));
+
+        if(node == null || !node.has(attribute)) {
+            logger.debug("The given node does not contain a valid '%s' attribute!".formatted(attribute));
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(node.get(attribute));
+    }
+
+    public JsonNode getMandatoryNodeValue(final JsonNode node, final String attribute) throws IllegalArgumentException {
+        logger.trace("getMandatoryNodeValue(node=%s, attribute=%s) method called.".formatted(node, attribute));
+
+        if(node == null || !node.has(attribute)) {
+            logger.info("The given node does not contain a valid '%s' node!".formatted(attribute));
+            throw new IllegalArgumentException("Supplied node does not contain a valid '%s' node!".formatted(attribute));
+        }
+
+        return node.get(attribute);
+    }
+
+    public JsonNode findNestedDataNode(final filing message) {
+        logger.trace("findNestedDataNode(message=%s) method called.".formatted(message));
+        try {
+            JsonNode dataNode = findDataNode(message);
+            JsonNode nestedNode = dataNode.get("data");
+
+            if(nestedNode == null || nestedNode.isEmpty()) {
+                logger.debug("No nested 'data' node found in message payload, result was: %s".formatted(dataNode));
+                throw new IllegalArgumentException("No nested 'data' node found in message payload!");
+            }
+
+            return nestedNode;
+
+        } catch (IllegalArgumentException e) {
+            logger.error(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+            throw new NonRetryableException(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+        }
+    }
+
+    public JsonNode findDataNode(final filing message) {
+        logger.trace("findDataNode(message=%s) method called.".formatted(message));
+        try {
+            return mapper.readTree(message.getData());
+
+        } catch (JsonProcessingException e) {
+            logger.error(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+            throw new NonRetryableException(ERROR_EXTRACTING_JSON_NODE.formatted("data"), e);
+        }
+    }
+
+}
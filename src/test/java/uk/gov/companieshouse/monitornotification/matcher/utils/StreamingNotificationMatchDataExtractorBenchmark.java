@@ -0,0 +1,74 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import monitor.filing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+
+/**
+ * Compares the data-binding extractor with the streaming extractor, selected by {@code PAYLOAD_PARSER}, on
+ * a realistic payload and on the same payload with a larger unused subtree (as filings with many links or
+ * annotations have), which the streaming extractor skips without reading into objects.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingNotificationMatchDataExtractorBenchmark {
+
+    @Param({"tree", "streaming"})
+    public String parser;
+
+    @Param({"0", "50"})
+    public int extraLinks;
+
+    private NotificationMatchDataExtractor extractor;
+    private filing message;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper();
+        Logger logger = LoggerFactory.getLogger("benchmark");
+        extractor = "streaming".equals(parser)
+                ? new StreamingNotificationMatchDataExtractor(mapper, logger)
+                : new NotificationMatchDataExtractor(mapper, logger);
+
+        message = buildFilingUpdateMessage().getPayload();
+        message.setData(withExtraLinks(message.getData(), extraLinks));
+    }
+
+    private static String withExtraLinks(final String data, final int count) {
+        StringBuilder links = new StringBuilder("\"links\" : {");
+        for (int i = 0; i < count; i++) {
+            links.append("\"document_%d\" : \"/transactions/158153-915517-386847/documents/%d\", ".formatted(i, i));
+        }
+        return data.replace("\"links\" : {", links.toString());
+    }
+
+    @Benchmark
+    public void extract(final Blackhole blackhole) {
+        ParsedNotificationMatch match = extractor.parse(message);
+
+        blackhole.consume(extractor.getCompanyNumber(match));
+        blackhole.consume(extractor.isDelete(match));
+        blackhole.consume(extractor.getFilingHistory(match));
+        blackhole.consume(extractor.getDescriptionValues(match));
+    }
+}
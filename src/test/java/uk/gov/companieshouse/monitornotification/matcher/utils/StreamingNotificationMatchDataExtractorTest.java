@@ -0,0 +1,203 @@
+package uk.gov.companieshouse.monitornotification.matcher.utils;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutCompanyNumber;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingDeleteMessageWithoutIsDelete;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateMessage;
+import static uk.gov.companieshouse.monitornotification.matcher.utils.NotificationMatchTestUtils.buildFilingUpdateWithLegacyDescriptionAndMissingDescriptionValuesMessage;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import monitor.filing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.monitornotification.matcher.exception.NonRetryableException;
+import uk.gov.companieshouse.monitornotification.matcher.model.FilingHistory;
+import uk.gov.companieshouse.monitornotification.matcher.model.NotificationMatchPayload;
+
+class StreamingNotificationMatchDataExtractorTest {
+
+    ObjectMapper mapper;
+    Logger logger;
+
+    StreamingNotificationMatchDataExtractor underTest;
+    NotificationMatchDataExtractor bindingExtractor;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new ObjectMapper();
+        logger = LoggerFactory.getLogger("test-logger");
+
+        underTest = new StreamingNotificationMatchDataExtractor(mapper, logger);
+        bindingExtractor = new NotificationMatchDataExtractor(mapper, logger);
+    }
+
+    static Stream<filing> validPayloads() {
+        return Stream.of(
+                buildFilingUpdateMessage().getPayload(),
+                buildFilingDeleteMessageWithoutCompanyNumber().getPayload(),
+                buildFilingDeleteMessageWithoutIsDelete().getPayload(),
+                buildFilingUpdateWithLegacyDescriptionAndMissingDescriptionValuesMessage().getPayload());
+    }
+
+    @ParameterizedTest
+    @MethodSource("validPayloads")
+    void givenValidPayload_whenReadPayload_thenMatchBindingExtractor(final filing payload) {
+        NotificationMatchPayload result = underTest.readPayload(payload);
+
+        assertThat(result, is(bindingExtractor.readPayload(payload)));
+    }
+
+    static Stream<String> edgeCasePayloads() {
+        String filingData = "\"data\":{\"type\":\"AP01\",\"description\":\"legacy\",\"date\":\"2025-02-04\"}";
+        return Stream.of(
+                "{\"company_number\":\"00006400\",\"is_delete\":true,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":false,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":1,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":0,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\"true\",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\"false\",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":null,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\"True\",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\" true \",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\"\",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":\"yes\",%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":2,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":1.5,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"is_delete\":{},%s}".formatted(filingData),
+                "{\"company_number\":6400,%s}".formatted(filingData),
+                "{\"company_number\":\"00006400\",\"data\":{}}",
+                "{\"company_number\":\"00006400\",\"data\":null}",
+                "{\"company_number\":\"00006400\"}",
+                "{\"company_number\":\"00006400\",\"data\":{\"links\":{\"self\":\"/filing-history/1\"}}}",
+                "{\"company_number\":\"00006400\",\"data\":{\"type\":\"AP01\",\"description\":\"legacy\"}}",
+                "{\"company_number\":\"00006400\",\"data\":{\"type\":\"AP01\",\"description\":\"legacy\",\"date\":\"2025-02-04\",\"description_values\":null}}",
+                "{\"company_number\":\"00006400\",\"data\":\"AP01\"}",
+                "!nvalid json");
+    }
+
+    @ParameterizedTest
+    @MethodSource("edgeCasePayloads")
+    void givenEdgeCasePayload_whenValuesExtracted_thenMatchBindingExtractor(final String data) {
+        assertThat(extractValues(underTest, data), is(extractValues(bindingExtractor, data)));
+    }
+
+    @Test
+    void givenNumericIsDelete_whenValuesExtracted_thenReadAsBoolean() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":\"00006400\",\"is_delete\":1}");
+
+        assertThat(underTest.isDelete(underTest.parse(payload)), is(TRUE));
+        assertThat(bindingExtractor.isDelete(bindingExtractor.parse(payload)), is(TRUE));
+    }
+
+    @Test
+    void givenNestedDataEmpty_whenGetFilingHistory_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":\"00006400\",\"data\":{}}");
+
+        assertThrows(NonRetryableException.class, () -> underTest.getFilingHistory(underTest.parse(payload)));
+        assertThrows(NonRetryableException.class, () -> bindingExtractor.getFilingHistory(bindingExtractor.parse(payload)));
+    }
+
+    /**
+     * Every value the processor extracts from the payload, in order, ending with the class of the exception
+     * raised by the first extraction that fails.
+     */
+    private static List<Object> extractValues(final NotificationMatchDataExtractor extractor, final String data) {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData(data);
+
+        List<Object> values = new ArrayList<>();
+        try {
+            ParsedNotificationMatch match = extractor.parse(payload);
+            values.add(extractor.getCompanyNumber(match));
+            values.add(extractor.isDelete(match));
+
+            FilingHistory filingHistory = extractor.getFilingHistory(match);
+            values.add(filingHistory.getType());
+            values.add(filingHistory.getDescription());
+            values.add(filingHistory.getDate());
+            values.add(extractor.getDescriptionValues(match));
+
+        } catch (RuntimeException ex) {
+            values.add(ex.getClass());
+        }
+        return values;
+    }
+
+    @Test
+    void givenValidPayload_whenValuesExtracted_thenReturnValues() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+
+        ParsedNotificationMatch match = underTest.parse(payload);
+
+        assertThat(underTest.getCompanyNumber(match).orElseThrow(), is("00006400"));
+        assertThat(underTest.isDelete(match), is(FALSE));
+        assertThat(underTest.getFilingHistory(match).getType(), is("AP01"));
+        assertThat(underTest.getDescriptionValues(match).get("officer_name"), is("DR AMIDAT DUPE IYIOLA"));
+    }
+
+    @Test
+    void givenNestedDataNull_whenReadPayload_thenDataMissing() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":\"00006400\",\"data\":null}");
+
+        NotificationMatchPayload result = underTest.readPayload(payload);
+
+        assertThat(result, is(notNullValue()));
+        assertThat(result.data(), is(nullValue()));
+    }
+
+    @Test
+    void givenEmptyPayload_whenReadPayload_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("");
+
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class,
+                () -> underTest.readPayload(payload));
+
+        assertThat(expectedException.getMessage(), is("An error occurred while attempting to extract the notification match payload: data"));
+    }
+
+    @Test
+    void givenStructuredValueForText_whenReadPayload_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":{\"value\":\"00006400\"}}");
+
+        assertThrows(NonRetryableException.class, () -> underTest.readPayload(payload));
+    }
+
+    @Test
+    void givenTrailingContent_whenReadPayload_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\":\"00006400\"} {}");
+
+        assertThrows(NonRetryableException.class, () -> underTest.readPayload(payload));
+    }
+
+    @Test
+    void givenMalformedPayload_whenReadPayload_thenRaiseException() {
+        filing payload = buildFilingUpdateMessage().getPayload();
+        payload.setData("{\"company_number\": !nvalid");
+
+        NonRetryableException expectedException = assertThrows(NonRetryableException.class,
+                () -> underTest.readPayload(payload));
+
+        assertThat(expectedException.getCause(), is(instanceOf(JsonParseException.class)));
+    }
+}